@@ -11,6 +11,8 @@ import com.edu.webapp.model.enums.ActiveStatus;
 import com.edu.webapp.model.request.UserCreateReq;
 import com.edu.webapp.model.response.AuthRes;
 import com.edu.webapp.repository.*;
+import com.edu.webapp.service.impl.DailyStatisticService;
+import com.edu.webapp.service.impl.MonthlyEngagementService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -41,6 +43,9 @@ public class Application implements CommandLineRunner {
     private final DistrictRepository districtRepository;
     private final AdvertisingPackageRepository advertisingPackageRepository;
     private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final DailyStatisticService dailyStatisticService;
+    private final MonthlyEngagementService monthlyEngagementService;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final CacheLocalConfig cacheLocalConfig;
@@ -55,6 +60,20 @@ public class Application implements CommandLineRunner {
         createDistricts();
         createAdvertisingPackage();
         createAdmin();
+        backfillLikeCount();
+        backfillCommentCount();
+        dailyStatisticService.backfill();
+        monthlyEngagementService.backfill();
+    }
+
+    private void backfillLikeCount() {
+        int updated = postRepository.backfillLikeCount();
+        if (updated > 0) log.info("Backfilled like count of {} posts", updated);
+    }
+
+    private void backfillCommentCount() {
+        int updated = postRepository.backfillCommentCount();
+        if (updated > 0) log.info("Backfilled comment count of {} posts", updated);
     }
 
     private void createAdmin() {
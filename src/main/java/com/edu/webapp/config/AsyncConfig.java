@@ -7,6 +7,8 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 public class AsyncConfig {
 
@@ -45,4 +47,43 @@ public class AsyncConfig {
         return executor;
     }
 
+
+    @Bean(name = "taskExecutorReindex")
+    public ThreadPoolTaskExecutor taskExecutorReindex() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(5);
+        executor.setMaxPoolSize(5);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("Async-Reindex-");
+        executor.initialize();
+        return executor;
+    }
+
+
+    // Enrichment lookups of search requests; tasks are never submitted from the ES I/O thread, so when it is saturated the submitting thread runs the lookup itself
+    @Bean(name = "taskExecutorSearch")
+    public ThreadPoolTaskExecutor taskExecutorSearch() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(10);
+        executor.setMaxPoolSize(20);
+        executor.setQueueCapacity(200);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("Async-Search-");
+        executor.initialize();
+        return executor;
+    }
+
+
+    // Background reloads of the analytics cache
+    @Bean(name = "taskExecutorAnalytic")
+    public ThreadPoolTaskExecutor taskExecutorAnalytic() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("Async-Analytic-");
+        executor.initialize();
+        return executor;
+    }
+
 }
@@ -0,0 +1,44 @@
+package com.edu.webapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Removes duplicate likes before Hibernate adds the uk_post_user key to LIKE_POST; with duplicates left
+ * the schema update fails to create the key and concurrent likes keep inserting copies.
+ * Runs before the entity manager factory, so also before the LIKE_COUNT backfill.
+ */
+@Configuration
+@Slf4j
+public class LikePostDedupeConfig {
+    private static final String TABLE_EXISTS = "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND LOWER(TABLE_NAME) = 'like_post'";
+    private static final String KEY_EXISTS = "SELECT COUNT(*) FROM information_schema.TABLE_CONSTRAINTS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND LOWER(TABLE_NAME) = 'like_post' AND CONSTRAINT_NAME = 'uk_post_user'";
+    // Keeps the row with the smallest ID of every (POST_ID, USER_ID)
+    private static final String DELETE_DUPLICATES = "DELETE l FROM like_post l JOIN " +
+            "(SELECT post_id, user_id, MIN(id) AS keep_id FROM like_post GROUP BY post_id, user_id HAVING COUNT(*) > 1) d " +
+            "ON l.post_id = d.post_id AND l.user_id = d.user_id AND l.id <> d.keep_id";
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor likePostDedupeDependsOn() {
+        return new EntityManagerFactoryDependsOnPostProcessor("likePostDedupe");
+    }
+
+    @Bean
+    public InitializingBean likePostDedupe(JdbcTemplate jdbcTemplate) {
+        return () -> {
+            if (count(jdbcTemplate, TABLE_EXISTS) == 0 || count(jdbcTemplate, KEY_EXISTS) > 0) return;
+            int deleted = jdbcTemplate.update(DELETE_DUPLICATES);
+            if (deleted > 0) log.info("Removed {} duplicate likes before adding uk_post_user", deleted);
+        };
+    }
+
+    private static long count(JdbcTemplate jdbcTemplate, String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,21 @@
+package com.edu.webapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+// Fields are volatile because PUT /api/v1/posts/ranking changes them while search threads read them
+@Component
+@ConfigurationProperties(prefix = "app.ranking")
+@Getter
+@Setter
+public class RankingConfig {
+    // Use the "recommended" ranking when a search does not ask for a sort
+    private volatile boolean enabled = true;
+    private volatile double vipWeight = 2;
+    private volatile double freshnessWeight = 1;
+    private volatile String freshnessScale = "7d";
+    private volatile String freshnessOffset = "1d";
+    private volatile double freshnessDecay = 0.5;
+}
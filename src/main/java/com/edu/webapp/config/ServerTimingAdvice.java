@@ -0,0 +1,32 @@
+package com.edu.webapp.config;
+
+import com.edu.webapp.service.impl.ServerTimingRecorder;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+@ControllerAdvice
+@RequiredArgsConstructor
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+    private final ServerTimingRecorder serverTimingRecorder;
+
+    @Override
+    public boolean supports(@NotNull MethodParameter returnType, @NotNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, @NotNull MethodParameter returnType, @NotNull MediaType selectedContentType,
+                                  @NotNull Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  @NotNull ServerHttpRequest request, @NotNull ServerHttpResponse response) {
+        String serverTiming = serverTimingRecorder.drainHeader();
+        if (serverTiming != null) response.getHeaders().add("Server-Timing", serverTiming);
+        return body;
+    }
+}
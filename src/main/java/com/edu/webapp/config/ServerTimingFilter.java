@@ -0,0 +1,29 @@
+package com.edu.webapp.config;
+
+import com.edu.webapp.service.impl.ServerTimingRecorder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Requests that end without a response body (errors, void handlers) never reach ServerTimingAdvice; their spans must not leak into the next request on this thread
+@Component
+@RequiredArgsConstructor
+public class ServerTimingFilter extends OncePerRequestFilter {
+    private final ServerTimingRecorder serverTimingRecorder;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            serverTimingRecorder.clear();
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package com.edu.webapp.controller;
 
+import com.edu.webapp.config.RankingConfig;
+import com.edu.webapp.error.ErrorCodes;
+import com.edu.webapp.error.ValidateException;
 import com.edu.webapp.model.enums.ActiveStatus;
+import com.edu.webapp.model.page.CursorPage;
+import com.edu.webapp.model.page.FacetPage;
 import com.edu.webapp.model.request.*;
+import com.edu.webapp.model.response.CacheStatsRes;
 import com.edu.webapp.model.response.CommentRes;
 import com.edu.webapp.model.response.PostRes;
 import com.edu.webapp.model.response.PostUserRes;
+import com.edu.webapp.model.response.ReindexRes;
 import com.edu.webapp.service.PostService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -19,6 +26,9 @@ import java.util.List;
 @RequestMapping("/api/v1/posts")
 @RestController
 public class PostController {
+    private static final int MAX_SUGGEST_SIZE = 50;
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final PostService postService;
 
     @PostMapping()
@@ -28,11 +38,51 @@ public class PostController {
     }
 
     @PostMapping("/search")
-    public ResponseEntity<Page<PostRes>> getPosts(@RequestBody(required = false) FilterPostReq filterPostReq) throws IOException {
+    public ResponseEntity<FacetPage<PostRes>> getPosts(@RequestBody(required = false) FilterPostReq filterPostReq) throws IOException {
         if (filterPostReq == null) filterPostReq = new FilterPostReq();
         return ResponseEntity.ok(postService.search(filterPostReq));
     }
 
+    @PostMapping("/search-scroll")
+    public ResponseEntity<CursorPage<PostRes>> getPostsScroll(@RequestBody(required = false) FilterPostReq filterPostReq) throws IOException {
+        if (filterPostReq == null) filterPostReq = new FilterPostReq();
+        if (filterPostReq.getSize() == null || filterPostReq.getSize() < 1 || filterPostReq.getSize() > MAX_SCROLL_SIZE)
+            throw new ValidateException(ErrorCodes.SEARCH_SIZE_INVALID);
+        return ResponseEntity.ok(postService.searchAfter(filterPostReq));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggest(@RequestParam(name = "key", defaultValue = "") String key,
+                                                @RequestParam(name = "size", defaultValue = "10") Integer size) {
+        if (size < 1 || size > MAX_SUGGEST_SIZE) throw new ValidateException(ErrorCodes.SUGGEST_SIZE_INVALID);
+        return ResponseEntity.ok(postService.suggest(key, size));
+    }
+
+    @GetMapping("/ranking")
+    public ResponseEntity<RankingConfig> getRanking() {
+        return ResponseEntity.ok(postService.getRanking());
+    }
+
+    @PutMapping("/ranking")
+    public ResponseEntity<RankingConfig> updateRanking(@RequestBody RankingReq rankingReq) {
+        return ResponseEntity.ok(postService.updateRanking(rankingReq));
+    }
+
+    @PostMapping("/reindex")
+    public ResponseEntity<ReindexRes> reindex() throws IOException {
+        return ResponseEntity.ok(postService.reindex());
+    }
+
+    @GetMapping("/reindex")
+    public ResponseEntity<ReindexRes> reindexStatus() {
+        return ResponseEntity.ok(postService.reindexStatus());
+    }
+
+    @GetMapping("/search-cache-stats")
+    public ResponseEntity<CacheStatsRes> searchCacheStats() {
+        return ResponseEntity.ok(postService.searchCacheStats());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PostRes> getPost(@PathVariable String id) {
         return ResponseEntity.ok(postService.getPostById(id));
@@ -92,12 +142,12 @@ public class PostController {
     }
 
     @GetMapping("/top-10-comment")
-    public ResponseEntity<List<PostRes>> top10Comment() {
+    public ResponseEntity<List<PostRes>> top10Comment() throws IOException {
         return  ResponseEntity.ok(postService.top10Comment());
     }
 
     @GetMapping("/top-10-like")
-    public ResponseEntity<List<PostRes>> top10Like() {
+    public ResponseEntity<List<PostRes>> top10Like() throws IOException {
         return  ResponseEntity.ok(postService.top10Like());
     }
 }
\ No newline at end of file
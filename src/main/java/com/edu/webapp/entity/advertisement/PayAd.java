@@ -14,7 +14,7 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "PAY_AD")
+@Table(name = "PAY_AD", indexes = {@Index(name = "idx_pay_ad_created_at", columnList = "CREATED_AT")})
 public class PayAd {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -12,7 +12,7 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "COMMENT", indexes = {@Index(name = "idx_post_id", columnList = "POST_ID")})
+@Table(name = "COMMENT", indexes = {@Index(name = "idx_post_id", columnList = "POST_ID"), @Index(name = "idx_comment_created_at", columnList = "CREATED_AT")})
 public class Comment {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -12,7 +12,9 @@ import java.time.OffsetDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "LIKE_POST", indexes = {@Index(name = "idx_user_id", columnList = "USER_ID")})
+@Table(name = "LIKE_POST",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_post_user", columnNames = {"POST_ID", "USER_ID"})},
+        indexes = {@Index(name = "idx_user_post", columnList = "USER_ID, POST_ID"), @Index(name = "idx_like_created_at", columnList = "CREATED_AT")})
 public class LikePost {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
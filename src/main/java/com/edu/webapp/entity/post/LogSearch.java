@@ -5,7 +5,6 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.OffsetDateTime;
 
@@ -26,7 +25,7 @@ public class LogSearch {
     @Column(name = "KEY_SEARCH")
     private String keySearch;
 
+    // Set when the search happens, the row itself is written later in a batch
     @Column(name = "CREATED_AT")
-    @CreationTimestamp
     private OffsetDateTime createdAt;
 }
@@ -0,0 +1,26 @@
+package com.edu.webapp.entity.post;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "MONTHLY_ENGAGEMENT")
+public class MonthlyEngagement {
+    // First day of the month
+    @Id
+    @Column(name = "STAT_MONTH", nullable = false)
+    private LocalDate statMonth;
+
+    @Column(name = "COMMENTS", nullable = false)
+    private Integer comments = 0;
+
+    @Column(name = "LIKES", nullable = false)
+    private Integer likes = 0;
+}
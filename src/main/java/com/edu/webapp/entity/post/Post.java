@@ -17,7 +17,7 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "POST")
+@Table(name = "POST", indexes = {@Index(name = "idx_like_count", columnList = "LIKE_COUNT"), @Index(name = "idx_comment_count", columnList = "COMMENT_COUNT")})
 public class Post {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -79,6 +79,14 @@ public class Post {
     @Column(name = "VIEW")
     private Long view = 0L;
 
+    // Kept in step with LIKE_POST by the like toggle; null only on rows created before the column existed
+    @Column(name = "LIKE_COUNT")
+    private Long likeCount = 0L;
+
+    // Kept in step with COMMENT by createComment; null only on rows created before the column existed
+    @Column(name = "COMMENT_COUNT")
+    private Long commentCount = 0L;
+
     @Column(name = "LONGITUDE")
     private String longitude;
 
@@ -5,41 +5,96 @@ import jakarta.persistence.Id;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.data.elasticsearch.annotations.Document;
-import org.springframework.data.elasticsearch.annotations.Field;
-import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.*;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
 
-import javax.print.DocFlavor;
 import java.sql.Timestamp;
-import java.time.OffsetDateTime;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(indexName = "post")
+@Setting(settingPath = "/elasticsearch/post-settings.json")
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class PostEls {
     @Id
+    @Field(type = FieldType.Keyword)
     private String id;
+    // "phong" matches "phòng"; .edge serves word prefixes and .ngram serves infixes in the title
+    @MultiField(mainField = @Field(type = FieldType.Text, analyzer = "vi_folding"),
+            otherFields = {
+                    @InnerField(suffix = "edge", type = FieldType.Text, analyzer = "vi_edge_ngram", searchAnalyzer = "vi_folding"),
+                    @InnerField(suffix = "ngram", type = FieldType.Text, analyzer = "vi_ngram", searchAnalyzer = "vi_ngram")
+            })
     private String title;
+    @MultiField(mainField = @Field(type = FieldType.Text, analyzer = "vi_folding"),
+            otherFields = {
+                    @InnerField(suffix = "edge", type = FieldType.Text, analyzer = "vi_edge_ngram", searchAnalyzer = "vi_folding")
+            })
     private String content;
+    @Field(type = FieldType.Double)
     private double price;
+    @Field(type = FieldType.Double)
     private double deposit;
+    @Field(type = FieldType.Text, analyzer = "vi_folding")
     private String address;
+    @Field(type = FieldType.Double)
     private double acreage;
+    @Field(type = FieldType.Keyword)
     private String statusRoom;
+    @Field(type = FieldType.Keyword, index = false)
     private String contact;
     @Field(type = FieldType.Date)
     private Timestamp createdAt;
+    @Field(type = FieldType.Keyword)
     private String createdBy;
     @Field(type = FieldType.Date)
     private Timestamp updatedAt;
+    @Field(type = FieldType.Keyword)
     private String updatedBy;
+    @Field(type = FieldType.Date)
+    private Timestamp expirationDate;
+    @Field(type = FieldType.Keyword, index = false)
+    private List<String> images;
+    @Field(type = FieldType.Keyword)
     private String province;
+    @Field(type = FieldType.Keyword)
     private String district;
+    @Field(type = FieldType.Long)
+    private Long view;
+    @Field(type = FieldType.Keyword, index = false)
     private String longitude;
+    @Field(type = FieldType.Keyword, index = false)
     private String latitude;
+    @GeoPointField
+    private GeoPoint location;
+    @Field(type = FieldType.Keyword)
     private String active;
+    @Field(type = FieldType.Keyword)
     private String type;
+    @Field(type = FieldType.Integer)
     private Integer vip;
+    @Field(type = FieldType.Long)
+    private Long totalLike;
+    @Field(type = FieldType.Long)
+    private Long totalComment;
+    @Field(type = FieldType.Object)
+    private UserPostEls userPostEls;
+
+    // Author card stored with the post so search results are built without MySQL. The last-seen time changes on every request
+    // and the post count on every post the author creates, so both are read live instead of reindexing all of the author's posts
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class UserPostEls {
+        private String id;
+        private String fullName;
+        private String avatar;
+        private String email;
+        private String phone;
+        @Field(type = FieldType.Date)
+        private Timestamp createdAt;
+    }
 }
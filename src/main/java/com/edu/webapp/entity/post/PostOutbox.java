@@ -0,0 +1,43 @@
+package com.edu.webapp.entity.post;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "POST_OUTBOX")
+public class PostOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID")
+    private Long id;
+
+    @Column(name = "POST_ID", nullable = false)
+    private String postId;
+
+    // When set, the indexed createdAt/updatedAt are moved to this time so an approved post shows up as new
+    @Column(name = "BUMPED_AT")
+    private OffsetDateTime bumpedAt;
+
+    // Location the post had before this change, so searches cached under it are evicted too
+    @Column(name = "OLD_PROVINCE")
+    private String oldProvince;
+
+    @Column(name = "OLD_DISTRICT")
+    private String oldDistrict;
+
+    // Failed pushes of this row; once it reaches app.post-outbox.max-attempts the row is kept as a dead letter and skipped
+    @Column(name = "ATTEMPTS")
+    private Integer attempts = 0;
+
+    @Column(name = "CREATED_AT")
+    @CreationTimestamp
+    private OffsetDateTime createdAt;
+}
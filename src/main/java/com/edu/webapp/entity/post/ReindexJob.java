@@ -0,0 +1,57 @@
+package com.edu.webapp.entity.post;
+
+import com.edu.webapp.model.enums.ReindexStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "REINDEX_JOB")
+public class ReindexJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "ID", updatable = false, nullable = false)
+    private String id;
+
+    @Column(name = "INDEX_NAME", nullable = false)
+    private String indexName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false)
+    private ReindexStatus status = ReindexStatus.RUNNING;
+
+    // Highest post id that has been bulk indexed; a resumed job continues after it
+    @Column(name = "LAST_POST_ID")
+    private String lastPostId = "";
+
+    @Column(name = "TOTAL_POST")
+    private Long totalPost = 0L;
+
+    @Column(name = "INDEXED")
+    private Long indexed = 0L;
+
+    @Column(name = "FAILED")
+    private Long failed = 0L;
+
+    @Column(name = "MESSAGE", columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "CREATED_AT")
+    @CreationTimestamp
+    private OffsetDateTime createdAt;
+
+    @Column(name = "UPDATED_AT")
+    @UpdateTimestamp
+    private OffsetDateTime updatedAt;
+
+    @Column(name = "FINISHED_AT")
+    private OffsetDateTime finishedAt;
+}
@@ -4,16 +4,14 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.sql.Date;
-import java.time.OffsetDateTime;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "REPORT_POST")
+@Table(name = "REPORT_POST", indexes = {@Index(name = "idx_report_post_created_at", columnList = "CREATED_AT")})
 public class ReportPost {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -27,7 +25,7 @@ public class ReportPost {
     private Integer postPending;
     @Column(name = "POST_REJECT")
     private Integer postReject;
+    // The day the counts describe, set by the snapshot job
     @Column(name = "CREATED_AT")
-    @CreationTimestamp
     private Date createdAt;
 }
@@ -0,0 +1,31 @@
+package com.edu.webapp.entity.user;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "DAILY_STATISTIC")
+public class DailyStatistic {
+    @Id
+    @Column(name = "STAT_DATE", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "REGISTRATIONS", nullable = false)
+    private Integer registrations = 0;
+
+    @Column(name = "LOGINS", nullable = false)
+    private Integer logins = 0;
+
+    @Column(name = "VIP_EXPIRIES", nullable = false)
+    private Integer vipExpiries = 0;
+
+    @Column(name = "PACKAGE_PURCHASES", nullable = false)
+    private Integer packagePurchases = 0;
+}
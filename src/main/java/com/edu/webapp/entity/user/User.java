@@ -24,7 +24,10 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "USER")
+@Table(name = "USER", indexes = {
+        @Index(name = "idx_user_created_at", columnList = "CREATED_AT"),
+        @Index(name = "idx_user_uptime", columnList = "UPTIME"),
+        @Index(name = "idx_user_recharge_vip", columnList = "RECHARGE_VIP")})
 public class User implements UserDetails, Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
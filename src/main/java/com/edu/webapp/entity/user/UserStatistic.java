@@ -0,0 +1,23 @@
+package com.edu.webapp.entity.user;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "USER_STATISTIC")
+public class UserStatistic {
+    @Id
+    @Column(name = "EMAIL", updatable = false, nullable = false)
+    private String email;
+
+    @Column(name = "TOTAL_POST", nullable = false)
+    private Integer totalPost = 0;
+
+    @Column(name = "ACTIVE_POST", nullable = false)
+    private Integer activePost = 0;
+}
@@ -22,6 +22,13 @@ public enum ErrorCodes {
     USER_NOT_EXIST("USER_NOT_EXIST", "Người dùng không tồn tại!"),
     USER_NOT_RECHARGE_VIP("USER_NOT_RECHARGE_VIP", "USER_NOT_RECHARGE_VIP"),
     PASSWORD_OLD_VALID("PASSWORD_OLD_VALID", "PASSWORD_OLD_VALID!"),
+    SEARCH_CURSOR_INVALID("SEARCH_CURSOR_INVALID", "SEARCH_CURSOR_INVALID"),
+    SEARCH_SIZE_INVALID("SEARCH_SIZE_INVALID", "SEARCH_SIZE_INVALID"),
+    SUGGEST_SIZE_INVALID("SUGGEST_SIZE_INVALID", "SUGGEST_SIZE_INVALID"),
+    GEO_DISTANCE_INVALID("GEO_DISTANCE_INVALID", "GEO_DISTANCE_INVALID"),
+    REINDEX_RUNNING("REINDEX_RUNNING", "REINDEX_RUNNING"),
+    REINDEX_NOT_EXIST("REINDEX_NOT_EXIST", "REINDEX_NOT_EXIST"),
+    RANKING_INVALID("RANKING_INVALID", "RANKING_INVALID"),
     INTERNAL_SERVER_ERROR("INTERNAL_SERVER_ERROR", "An unexpected error occurred");
     private final String code;
     private final String message;
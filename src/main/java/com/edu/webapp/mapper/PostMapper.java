@@ -3,6 +3,7 @@ package com.edu.webapp.mapper;
 import com.edu.webapp.entity.post.Image;
 import com.edu.webapp.entity.post.Post;
 import com.edu.webapp.entity.post.PostEls;
+import com.edu.webapp.entity.user.User;
 import com.edu.webapp.model.enums.RoomStatus;
 import com.edu.webapp.model.enums.TypeRoom;
 import com.edu.webapp.model.request.PostCreateReq;
@@ -11,7 +12,12 @@ import com.edu.webapp.model.response.PostUserRes;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
 
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,14 +31,57 @@ public interface PostMapper {
 
 //    List<Post> postsElsToPosts(List<PostEls> postEls);
     @Mapping(source = "images", target = "images", qualifiedByName = "convertImages")
+    @Mapping(source = "likeCount", target = "totalLike")
 //    @Mapping(source = "statusRoom", target = "statusRoom", qualifiedByName = "convertStatusRoom")
 //    @Mapping(source = "type", target = "type", qualifiedByName = "convertType")
     PostRes postToPostRes(Post post);
 
-    @Mapping(target = "createdAt", ignore = true)
-    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(source = "images", target = "images", qualifiedByName = "convertImages")
+    @Mapping(target = "vip", ignore = true)
+    @Mapping(source = "likeCount", target = "totalLike")
+    @Mapping(target = "totalComment", ignore = true)
+    @Mapping(target = "userPostEls", ignore = true)
+    @Mapping(target = "location", expression = "java(toGeoPoint(post.getLatitude(), post.getLongitude()))")
     PostEls postToPostEls(Post post);
 
+    PostEls.UserPostEls userToUserPostEls(User user);
+
+    List<PostRes> postsElsToPostsRes(List<PostEls> postEls);
+
+    @Mapping(source = "userPostEls", target = "userPostRes")
+    PostRes postElsToPostRes(PostEls postEls);
+
+    @Mapping(target = "uptime", ignore = true)
+    @Mapping(target = "dateOfJoin", ignore = true)
+    @Mapping(target = "totalPost", ignore = true)
+    PostRes.UserPostRes userPostElsToUserPostRes(PostEls.UserPostEls userPostEls);
+
+    default PostEls postToPostEls(Post post, User user) {
+        PostEls postEls = postToPostEls(post);
+        postEls.setVip(user.getRechargeVip() != null && !LocalDate.now().isAfter(user.getRechargeVip()) ? 1 : 0);
+        postEls.setUserPostEls(userToUserPostEls(user));
+        return postEls;
+    }
+
+    default GeoPoint toGeoPoint(String latitude, String longitude) {
+        try {
+            double lat = Double.parseDouble(latitude.trim());
+            double lon = Double.parseDouble(longitude.trim());
+            if (Math.abs(lat) > 90 || Math.abs(lon) > 180) return null;
+            return new GeoPoint(lat, lon);
+        } catch (NullPointerException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    default Timestamp toTimestamp(OffsetDateTime offsetDateTime) {
+        return offsetDateTime == null ? null : Timestamp.from(offsetDateTime.toInstant());
+    }
+
+    default OffsetDateTime toOffsetDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : OffsetDateTime.ofInstant(timestamp.toInstant(), ZoneId.systemDefault());
+    }
+
     List<PostUserRes> postsToPostsUsers(List<Post> posts);
 
     PostUserRes postToPostUserRes(Post post);
@@ -0,0 +1,17 @@
+package com.edu.webapp.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SearchCursorDto {
+    private String pit;
+    private List<Object> after;
+}
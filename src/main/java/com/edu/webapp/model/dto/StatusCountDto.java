@@ -0,0 +1,16 @@
+package com.edu.webapp.model.dto;
+
+import com.edu.webapp.model.enums.ActiveStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StatusCountDto {
+    private ActiveStatus active;
+    private Long total;
+}
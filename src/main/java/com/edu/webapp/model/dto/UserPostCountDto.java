@@ -0,0 +1,16 @@
+package com.edu.webapp.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserPostCountDto {
+    private String email;
+    private Long totalPost;
+    private Long activePost;
+}
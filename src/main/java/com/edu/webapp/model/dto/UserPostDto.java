@@ -0,0 +1,15 @@
+package com.edu.webapp.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserPostDto {
+    private String userId;
+    private String postId;
+}
@@ -0,0 +1,5 @@
+package com.edu.webapp.model.enums;
+
+public enum ReindexStatus {
+    RUNNING, DONE, FAILED
+}
@@ -0,0 +1,20 @@
+package com.edu.webapp.model.page;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class CursorPage<T> extends PageImpl<T> {
+    private String cursor;
+
+    public CursorPage(List<T> content, Pageable pageable, long total, String cursor) {
+        super(content, pageable, total);
+        this.cursor = cursor;
+    }
+
+}
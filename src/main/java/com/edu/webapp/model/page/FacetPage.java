@@ -0,0 +1,22 @@
+package com.edu.webapp.model.page;
+
+import com.edu.webapp.model.response.FacetRes;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class FacetPage<T> extends PageImpl<T> {
+    private Map<String, List<FacetRes>> facets;
+
+    public FacetPage(List<T> content, Pageable pageable, long total, Map<String, List<FacetRes>> facets) {
+        super(content, pageable, total);
+        this.facets = facets;
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.edu.webapp.model.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FilterGeoReq {
+    // Center + radius in kilometres
+    private Double lat;
+    private Double lon;
+    private Double distance;
+    // Bounding box of the visible map
+    private Double top;
+    private Double left;
+    private Double bottom;
+    private Double right;
+
+    public boolean hasCenter() {
+        return lat != null && lon != null;
+    }
+
+    public boolean hasBoundingBox() {
+        return top != null && left != null && bottom != null && right != null;
+    }
+}
@@ -18,6 +18,9 @@ public class FilterPostReq {
     private String key;
     private String fieldSort;
     private String statusRoom;
+    private FilterGeoReq geo;
+    private Boolean facets;
     private Integer page = 0;
     private Integer size = 10;
+    private String cursor;
 }
@@ -0,0 +1,19 @@
+package com.edu.webapp.model.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RankingReq {
+    private Boolean enabled;
+    private Double vipWeight;
+    private Double freshnessWeight;
+    private String freshnessScale;
+    private String freshnessOffset;
+    private Double freshnessDecay;
+}
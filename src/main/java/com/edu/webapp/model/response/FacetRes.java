@@ -0,0 +1,15 @@
+package com.edu.webapp.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FacetRes {
+    private String key;
+    private Long count;
+}
@@ -12,7 +12,7 @@ import java.util.List;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class PostRes {
     private String id;
     private String title;
@@ -34,6 +34,7 @@ public class PostRes {
     private List<String> images;
     private String province;
     private String district;
+    @Builder.Default
     private Long view = 0L;
     private String longitude;
     private String latitude;
@@ -48,7 +49,7 @@ public class PostRes {
 
     @AllArgsConstructor
     @NoArgsConstructor
-    @Builder
+    @Builder(toBuilder = true)
     @Data
     public static class UserPostRes {
         private String id;
@@ -0,0 +1,27 @@
+package com.edu.webapp.model.response;
+
+import com.edu.webapp.model.enums.ReindexStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReindexRes {
+    private String id;
+    private String indexName;
+    private ReindexStatus status;
+    private Long totalPost;
+    private Long indexed;
+    private Long failed;
+    private Double progress;
+    private Double docsPerSecond;
+    private String message;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime finishedAt;
+}
@@ -1,7 +1,8 @@
 package com.edu.webapp.repository;
 
 import com.edu.webapp.entity.post.Comment;
-import com.edu.webapp.model.dto.PostCommentDto;
+import com.edu.webapp.model.dto.UserPostDto;
+import com.edu.webapp.model.enums.ActiveStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -19,66 +20,9 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     Page<Comment> findByPostId(String postId, Pageable pageable);
 
+    long countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(OffsetDateTime from, OffsetDateTime to);
 
-    @Query(nativeQuery = true, value = "SELECT DATE_FORMAT(DATE_SUB(CURDATE(), INTERVAL n.num MONTH), '%Y-%m') AS Month\n" +
-            "FROM (SELECT 0 AS num\n" +
-            "      UNION ALL\n" +
-            "      SELECT 1\n" +
-            "      UNION ALL\n" +
-            "      SELECT 2\n" +
-            "      UNION ALL\n" +
-            "      SELECT 3\n" +
-            "      UNION ALL\n" +
-            "      SELECT 4\n" +
-            "      UNION ALL\n" +
-            "      SELECT 5\n" +
-            "      UNION ALL\n" +
-            "      SELECT 6\n" +
-            "      UNION ALL\n" +
-            "      SELECT 7\n" +
-            "      UNION ALL\n" +
-            "      SELECT 8\n" +
-            "      UNION ALL\n" +
-            "      SELECT 9\n" +
-            "      UNION ALL\n" +
-            "      SELECT 10\n" +
-            "      UNION ALL\n" +
-            "      SELECT 11\n" +
-            "      UNION ALL\n" +
-            "      SELECT 12) n\n" +
-            "ORDER BY Month ")
-    List<String> get12Month();
-
-    @Query(nativeQuery = true, value = "WITH LIST_MONTH AS (\n" +
-            "    SELECT DATE_FORMAT(DATE_SUB(CURDATE(), INTERVAL n.num MONTH), '%Y-%m') AS Month\n" +
-            "    FROM (\n" +
-            "        SELECT 0 AS num UNION ALL\n" +
-            "        SELECT 1 UNION ALL\n" +
-            "        SELECT 2 UNION ALL\n" +
-            "        SELECT 3 UNION ALL\n" +
-            "        SELECT 4 UNION ALL\n" +
-            "        SELECT 5 UNION ALL\n" +
-            "        SELECT 6 UNION ALL\n" +
-            "        SELECT 7 UNION ALL\n" +
-            "        SELECT 8 UNION ALL\n" +
-            "        SELECT 9 UNION ALL\n" +
-            "        SELECT 10 UNION ALL\n" +
-            "        SELECT 11 UNION ALL\n" +
-            "        SELECT 12\n" +
-            "    ) n\n" +
-            "    ORDER BY Month\n" +
-            ")\n" +
-            "SELECT  count(c.id)\n" +
-            "FROM LIST_MONTH m\n" +
-            "LEFT JOIN comment c ON m.Month = DATE_FORMAT(c.created_at, '%Y-%m')\n" +
-            "group by Month\n" +
-            "order by Month; ")
-    List<Integer> countLikeByMonth();
-
-
-    @Query(value = "SELECT new com.edu.webapp.model.dto.PostCommentDto(c.postId, COUNT(c.id)) " +
-            "FROM Comment c " +
-            "GROUP BY c.postId " +
-            "ORDER BY COUNT(c.id) DESC")
-    List<PostCommentDto> findTop10Comments();
+    @Query(value = "select distinct new com.edu.webapp.model.dto.UserPostDto(c.userId, c.postId) from Comment c " +
+            "join Post p on p.id = c.postId where p.active = :active")
+    List<UserPostDto> findUserPostByActive(@Param("active") ActiveStatus active);
 }
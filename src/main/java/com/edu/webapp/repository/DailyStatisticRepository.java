@@ -0,0 +1,34 @@
+package com.edu.webapp.repository;
+
+import com.edu.webapp.entity.user.DailyStatistic;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyStatisticRepository extends JpaRepository<DailyStatistic, LocalDate> {
+    List<DailyStatistic> findByStatDateBetweenOrderByStatDate(LocalDate startDate, LocalDate endDate);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO daily_statistic (stat_date, registrations, logins, vip_expiries, package_purchases) " +
+            "VALUES (:statDate, :registrations, :logins, :vipExpiries, :packagePurchases) " +
+            "ON DUPLICATE KEY UPDATE registrations = registrations + VALUES(registrations), logins = logins + VALUES(logins), " +
+            "vip_expiries = vip_expiries + VALUES(vip_expiries), package_purchases = package_purchases + VALUES(package_purchases)")
+    int increase(@Param("statDate") LocalDate statDate, @Param("registrations") int registrations, @Param("logins") int logins,
+                 @Param("vipExpiries") int vipExpiries, @Param("packagePurchases") int packagePurchases);
+
+    // Logins cannot be recounted from USER.UPTIME, which only keeps the last one, so the counted value is never lowered
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO daily_statistic (stat_date, registrations, logins, vip_expiries, package_purchases) " +
+            "VALUES (:statDate, :registrations, :logins, :vipExpiries, :packagePurchases) " +
+            "ON DUPLICATE KEY UPDATE registrations = VALUES(registrations), logins = GREATEST(logins, VALUES(logins)), " +
+            "vip_expiries = VALUES(vip_expiries), package_purchases = VALUES(package_purchases)")
+    int replace(@Param("statDate") LocalDate statDate, @Param("registrations") int registrations, @Param("logins") int logins,
+                @Param("vipExpiries") int vipExpiries, @Param("packagePurchases") int packagePurchases);
+}
@@ -3,12 +3,17 @@ package com.edu.webapp.repository;
 
 import com.edu.webapp.entity.post.LikePost;
 import com.edu.webapp.model.dto.PostCommentDto;
-import com.edu.webapp.model.dto.PostLikeDto;
+import com.edu.webapp.model.dto.UserPostDto;
+import com.edu.webapp.model.enums.ActiveStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface LikePostRepository extends JpaRepository<LikePost, String> {
@@ -16,66 +21,26 @@ public interface LikePostRepository extends JpaRepository<LikePost, String> {
 
     Page<LikePost> findLikePostByUserId(String userId, Pageable pageable);
 
-    LikePost findLikePostByPostIdAndUserId(String postId, String userId);
+    Long countByPostId(String postId);
 
-    @Query(nativeQuery = true, value = "SELECT DATE_FORMAT(DATE_SUB(CURDATE(), INTERVAL n.num MONTH), '%Y-%m') AS Month\n" +
-            "FROM (SELECT 0 AS num\n" +
-            "      UNION ALL\n" +
-            "      SELECT 1\n" +
-            "      UNION ALL\n" +
-            "      SELECT 2\n" +
-            "      UNION ALL\n" +
-            "      SELECT 3\n" +
-            "      UNION ALL\n" +
-            "      SELECT 4\n" +
-            "      UNION ALL\n" +
-            "      SELECT 5\n" +
-            "      UNION ALL\n" +
-            "      SELECT 6\n" +
-            "      UNION ALL\n" +
-            "      SELECT 7\n" +
-            "      UNION ALL\n" +
-            "      SELECT 8\n" +
-            "      UNION ALL\n" +
-            "      SELECT 9\n" +
-            "      UNION ALL\n" +
-            "      SELECT 10\n" +
-            "      UNION ALL\n" +
-            "      SELECT 11\n" +
-            "      UNION ALL\n" +
-            "      SELECT 12) n\n" +
-            "ORDER BY Month ")
-    List<String> get12Month();
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM like_post WHERE post_id = :postId AND user_id = :userId")
+    int deleteLike(@Param("postId") String postId, @Param("userId") String userId);
 
-    @Query(nativeQuery = true, value = "WITH LIST_MONTH AS (\n" +
-            "    SELECT DATE_FORMAT(DATE_SUB(CURDATE(), INTERVAL n.num MONTH), '%Y-%m') AS Month\n" +
-            "    FROM (\n" +
-            "        SELECT 0 AS num UNION ALL\n" +
-            "        SELECT 1 UNION ALL\n" +
-            "        SELECT 2 UNION ALL\n" +
-            "        SELECT 3 UNION ALL\n" +
-            "        SELECT 4 UNION ALL\n" +
-            "        SELECT 5 UNION ALL\n" +
-            "        SELECT 6 UNION ALL\n" +
-            "        SELECT 7 UNION ALL\n" +
-            "        SELECT 8 UNION ALL\n" +
-            "        SELECT 9 UNION ALL\n" +
-            "        SELECT 10 UNION ALL\n" +
-            "        SELECT 11 UNION ALL\n" +
-            "        SELECT 12\n" +
-            "    ) n\n" +
-            "    ORDER BY Month\n" +
-            ")\n" +
-            "SELECT  count(l.id)\n" +
-            "FROM LIST_MONTH m\n" +
-            "LEFT JOIN like_post l ON m.Month = DATE_FORMAT(l.created_at, '%Y-%m')\n" +
-            "group by Month\n" +
-            "order by Month ")
-    List<Integer> countLikeByMonth();
+    // The unique (POST_ID, USER_ID) key turns a concurrent second like into a no-op instead of a duplicate row
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT IGNORE INTO like_post (id, post_id, user_id, created_at) VALUES (:id, :postId, :userId, NOW(6))")
+    int insertLike(@Param("id") String id, @Param("postId") String postId, @Param("userId") String userId);
 
-    @Query(value = "SELECT new com.edu.webapp.model.dto.PostLikeDto(l.postId, COUNT(l.id)) " +
-            "FROM LikePost l " +
-            "GROUP BY l.postId " +
-            "ORDER BY COUNT(l.id) DESC")
-    List<PostLikeDto> findTop10Like();
+    @Query(value = "select l.postId from LikePost l where l.userId = :userId and l.postId in :postIds")
+    List<String> findLikedPostIds(@Param("userId") String userId, @Param("postIds") Collection<String> postIds);
+
+    @Query(value = "select l.postId from LikePost l where l.userId = :userId")
+    List<String> findLikedPostIdsByUserId(@Param("userId") String userId, Pageable pageable);
+
+    long countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(OffsetDateTime from, OffsetDateTime to);
+
+    @Query(value = "select distinct new com.edu.webapp.model.dto.UserPostDto(l.userId, l.postId) from LikePost l " +
+            "join Post p on p.id = l.postId where p.active = :active")
+    List<UserPostDto> findUserPostByActive(@Param("active") ActiveStatus active);
 }
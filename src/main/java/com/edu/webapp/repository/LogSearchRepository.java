@@ -1,6 +1,8 @@
 package com.edu.webapp.repository;
 
 import com.edu.webapp.entity.post.LogSearch;
+import com.edu.webapp.model.dto.SuggestTermDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,4 +12,8 @@ import java.util.List;
 public interface LogSearchRepository extends JpaRepository<LogSearch, String> {
     @Query(value = "select l.keySearch from LogSearch l WHERE l.userId=:userId order by l.createdAt desc limit 10")
     List<String> findByUserId(@Param("userId") String userId);
+
+    @Query(value = "select new com.edu.webapp.model.dto.SuggestTermDto(l.keySearch, count(l.id)) from LogSearch l " +
+            "where l.keySearch is not null group by l.keySearch order by count(l.id) desc")
+    List<SuggestTermDto> findTopKeySearch(Pageable pageable);
 }
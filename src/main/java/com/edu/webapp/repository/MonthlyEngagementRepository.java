@@ -0,0 +1,27 @@
+package com.edu.webapp.repository;
+
+import com.edu.webapp.entity.post.MonthlyEngagement;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface MonthlyEngagementRepository extends JpaRepository<MonthlyEngagement, LocalDate> {
+    List<MonthlyEngagement> findByStatMonthBetweenOrderByStatMonth(LocalDate startMonth, LocalDate endMonth);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO monthly_engagement (stat_month, comments, likes) VALUES (:statMonth, :comments, :likes) " +
+            "ON DUPLICATE KEY UPDATE comments = comments + VALUES(comments), likes = likes + VALUES(likes)")
+    int increase(@Param("statMonth") LocalDate statMonth, @Param("comments") int comments, @Param("likes") int likes);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO monthly_engagement (stat_month, comments, likes) VALUES (:statMonth, :comments, :likes) " +
+            "ON DUPLICATE KEY UPDATE comments = VALUES(comments), likes = VALUES(likes)")
+    int replace(@Param("statMonth") LocalDate statMonth, @Param("comments") int comments, @Param("likes") int likes);
+}
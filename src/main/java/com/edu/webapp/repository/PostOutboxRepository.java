@@ -0,0 +1,27 @@
+package com.edu.webapp.repository;
+
+import com.edu.webapp.entity.post.PostOutbox;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PostOutboxRepository extends JpaRepository<PostOutbox, Long> {
+    @Query(value = "select o from PostOutbox o where coalesce(o.attempts, 0) < :maxAttempts order by o.id")
+    List<PostOutbox> findPending(@Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query(value = "update PostOutbox o set o.attempts = coalesce(o.attempts, 0) + 1 where o.id in :ids")
+    void increaseAttempts(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from PostOutbox o where o.id in :ids")
+    void deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
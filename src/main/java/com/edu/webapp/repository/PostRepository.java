@@ -2,12 +2,23 @@ package com.edu.webapp.repository;
 
 import com.edu.webapp.entity.post.Post;
 import com.edu.webapp.model.dto.PostCommentDto;
+import com.edu.webapp.model.dto.PostLikeDto;
+import com.edu.webapp.model.dto.PostTitleDto;
+import com.edu.webapp.model.dto.StatusCountDto;
+import com.edu.webapp.model.dto.SuggestTermDto;
+import com.edu.webapp.model.dto.UserPostCountDto;
 import com.edu.webapp.model.enums.ActiveStatus;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface PostRepository extends JpaRepository<Post, String> {
@@ -19,12 +30,68 @@ public interface PostRepository extends JpaRepository<Post, String> {
 
     Integer countByCreatedBy(String createdBy);
 
+    @Query(value = "select new com.edu.webapp.model.dto.UserPostCountDto(p.createdBy, count(p.id), sum(case when p.active = :active then 1 else 0 end)) " +
+            "from Post p where p.createdBy in :emails group by p.createdBy")
+    List<UserPostCountDto> countGroupByCreatedBy(@Param("emails") Collection<String> emails, @Param("active") ActiveStatus active);
+
     List<Post> findByIdIn(List<String> ids);
 
-    @Query(value = "select p from Post p left join User u on p.createdBy=u.email where p.active = 'ACTIVE' order by RAND() limit 10")
-    List<Post> findRandomRecommend();
+    @EntityGraph(attributePaths = "images")
+    List<Post> findWithImagesByIdIn(Collection<String> ids);
+
+    @Query(value = "select p.id from Post p where p.active = :active and p.id > :lastId order by p.id")
+    List<String> findIdsAfter(@Param("active") ActiveStatus active, @Param("lastId") String lastId, Pageable pageable);
+
+    @Query(value = "select p.id from Post p where p.createdBy = :createdBy and p.active = :active")
+    List<String> findIdsByCreatedByAndActive(@Param("createdBy") String createdBy, @Param("active") ActiveStatus active);
+
+    @Query(value = "select p.id from Post p where p.updatedAt >= :from")
+    List<String> findIdsUpdatedSince(@Param("from") OffsetDateTime from);
 
     Integer countByActive(ActiveStatus status);
 
+    @Query(value = "select new com.edu.webapp.model.dto.StatusCountDto(p.active, count(p.id)) from Post p group by p.active")
+    List<StatusCountDto> countGroupByActive();
+
+    @Query(value = "select new com.edu.webapp.model.dto.PostTitleDto(p.id, p.title) from Post p where p.active = :active")
+    List<PostTitleDto> findPostTitleByActive(@Param("active") ActiveStatus active);
+
+    @Query(value = "select p.title from Post p where p.active = :active")
+    List<String> findTitleByActive(@Param("active") ActiveStatus active);
+
+    @Query(value = "select new com.edu.webapp.model.dto.SuggestTermDto(p.district, count(p.id)) from Post p " +
+            "where p.active = :active and p.district is not null group by p.district")
+    List<SuggestTermDto> countGroupByDistrict(@Param("active") ActiveStatus active);
+
+
+
+    @Modifying
+    @Query(value = "update Post p set p.likeCount = p.likeCount + :delta where p.id = :id")
+    int addLikeCount(@Param("id") String id, @Param("delta") long delta);
+
+    @Query(value = "select p.likeCount from Post p where p.id = :id")
+    Long findLikeCountById(@Param("id") String id);
+
+    @Query(value = "select new com.edu.webapp.model.dto.PostLikeDto(p.id, p.likeCount) from Post p where p.likeCount > 0 order by p.likeCount desc")
+    List<PostLikeDto> findTopLikeCount(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE post p SET p.like_count = (SELECT COUNT(*) FROM like_post l WHERE l.post_id = p.id) WHERE p.like_count IS NULL")
+    int backfillLikeCount();
+
+    @Modifying
+    @Query(value = "update Post p set p.commentCount = p.commentCount + :delta where p.id = :id")
+    int addCommentCount(@Param("id") String id, @Param("delta") long delta);
+
+    @Query(value = "select p.commentCount from Post p where p.id = :id")
+    Long findCommentCountById(@Param("id") String id);
+
+    @Query(value = "select new com.edu.webapp.model.dto.PostCommentDto(p.id, p.commentCount) from Post p where p.commentCount > 0 order by p.commentCount desc")
+    List<PostCommentDto> findTopCommentCount(Pageable pageable);
 
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "UPDATE post p SET p.comment_count = (SELECT COUNT(*) FROM comment c WHERE c.post_id = p.id) WHERE p.comment_count IS NULL")
+    int backfillCommentCount();
 }
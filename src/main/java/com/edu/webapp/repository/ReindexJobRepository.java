@@ -0,0 +1,13 @@
+package com.edu.webapp.repository;
+
+import com.edu.webapp.entity.post.ReindexJob;
+import com.edu.webapp.model.enums.ReindexStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface ReindexJobRepository extends JpaRepository<ReindexJob, String> {
+    Optional<ReindexJob> findFirstByStatusOrderByCreatedAtDesc(ReindexStatus status);
+
+    Optional<ReindexJob> findFirstByOrderByCreatedAtDesc();
+}
@@ -11,71 +11,10 @@ import java.sql.Date;
 import java.util.List;
 
 public interface ReportPostRepository extends JpaRepository<ReportPost, String> {
-
-
     @Transactional
     @Modifying
-    @Query("DELETE FROM ReportPost rp WHERE DATE( rp.createdAt) = DATE(:date)")
+    @Query("DELETE FROM ReportPost rp WHERE rp.createdAt = :date")
     void deleteByCreatedAt(@Param("date") Date date);
 
-    @Query(nativeQuery = true, value = "WITH RECURSIVE DateRange AS (\n" +
-            "    SELECT CAST(:startDate AS DATE) AS date_val -- ngày bắt đầu\n" +
-            "    UNION ALL\n" +
-            "    SELECT DATE_ADD(date_val, INTERVAL 1 DAY)\n" +  // Cộng ngày bằng DATE_ADD
-            "    FROM DateRange\n" +
-            "    WHERE date_val < CAST(:endDate AS DATE)  -- ngày kết thúc\n" +
-            ")\n" +
-            "SELECT IFNULL(rp.post_active, 0) AS user_count\n" +  // Trả về 0 nếu không có dữ liệu
-            "FROM DateRange dr\n" +
-            "LEFT JOIN report_post rp ON DATE(rp.created_at) = DATE(dr.date_val)\n" +
-            "ORDER BY dr.date_val")
-    List<Integer> postActiveCount(@Param("startDate") java.util.Date startDate,
-                                  @Param("endDate") java.util.Date endDate);
-
-
-    @Query(nativeQuery = true, value = "WITH RECURSIVE DateRange AS (\n" +
-            "    SELECT CAST(:startDate AS DATE) AS date_val -- ngày bắt đầu\n" +
-            "    UNION ALL\n" +
-            "    SELECT DATE_ADD(date_val, INTERVAL 1 DAY)\n" +  // Cộng ngày bằng DATE_ADD
-            "    FROM DateRange\n" +
-            "    WHERE date_val < CAST(:endDate AS DATE)  -- ngày kết thúc\n" +
-            ")\n" +
-            "SELECT IFNULL(rp.post_inactive, 0) AS user_count\n" +  // Trả về 0 nếu không có dữ liệu
-            "FROM DateRange dr\n" +
-            "LEFT JOIN report_post rp ON DATE(rp.created_at) = DATE(dr.date_val)\n" +
-            "ORDER BY dr.date_val")
-    List<Integer> postPendingCount(@Param("startDate") java.util.Date startDate,
-                                   @Param("endDate") java.util.Date endDate);
-
-
-    @Query(nativeQuery = true, value = "WITH RECURSIVE DateRange AS (\n" +
-            "    SELECT CAST(:startDate AS DATE) AS date_val -- ngày bắt đầu\n" +
-            "    UNION ALL\n" +
-            "    SELECT DATE_ADD(date_val, INTERVAL 1 DAY)\n" +  // Cộng ngày bằng DATE_ADD
-            "    FROM DateRange\n" +
-            "    WHERE date_val < CAST(:endDate AS DATE)  -- ngày kết thúc\n" +
-            ")\n" +
-            "SELECT IFNULL(rp.post_pending, 0) AS user_count\n" +  // Trả về 0 nếu không có dữ liệu
-            "FROM DateRange dr\n" +
-            "LEFT JOIN report_post rp ON DATE(rp.created_at) = DATE(dr.date_val)\n" +
-            "ORDER BY dr.date_val")
-    List<Integer> postRejectCount(@Param("startDate") java.util.Date startDate,
-                                  @Param("endDate") java.util.Date endDate);
-
-
-    @Query(nativeQuery = true, value = "WITH RECURSIVE DateRange AS (\n" +
-            "    SELECT CAST(:startDate AS DATE) AS date_val -- ngày bắt đầu\n" +
-            "    UNION ALL\n" +
-            "    SELECT DATE_ADD(date_val, INTERVAL 1 DAY)\n" +  // Cộng ngày bằng DATE_ADD
-            "    FROM DateRange\n" +
-            "    WHERE date_val < CAST(:endDate AS DATE)  -- ngày kết thúc\n" +
-            ")\n" +
-            "SELECT IFNULL(rp.post_reject, 0) AS user_count\n" +  // Trả về 0 nếu không có dữ liệu
-            "FROM DateRange dr\n" +
-            "LEFT JOIN report_post rp ON DATE(rp.created_at) = DATE(dr.date_val)\n" +
-            "ORDER BY dr.date_val")
-    List<Integer> postInactiveCount(@Param("startDate") java.util.Date startDate,
-                                    @Param("endDate") java.util.Date endDate);
-
-
+    List<ReportPost> findByCreatedAtBetweenOrderByCreatedAt(Date startDate, Date endDate);
 }
@@ -0,0 +1,29 @@
+package com.edu.webapp.repository;
+
+import com.edu.webapp.entity.user.UserStatistic;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserStatisticRepository extends JpaRepository<UserStatistic, String> {
+    List<UserStatistic> findAllByEmailIn(Collection<String> emails);
+
+    // An author without a row is counted from POST in the same statement; the writer's transaction already sees its own change
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO user_statistic (email, total_post, active_post) " +
+            "SELECT :email, COUNT(*), COALESCE(SUM(active = 'ACTIVE'), 0) FROM post WHERE created_by = :email " +
+            "ON DUPLICATE KEY UPDATE total_post = total_post + :totalPost, active_post = active_post + :activePost")
+    int increase(@Param("email") String email, @Param("totalPost") int totalPost, @Param("activePost") int activePost);
+
+    // A seed counted by a reader may already be stale, so it never replaces a row a writer created first
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT IGNORE INTO user_statistic (email, total_post, active_post) VALUES (:email, :totalPost, :activePost)")
+    int seed(@Param("email") String email, @Param("totalPost") int totalPost, @Param("activePost") int activePost);
+}
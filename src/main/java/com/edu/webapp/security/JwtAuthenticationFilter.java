@@ -2,6 +2,7 @@ package com.edu.webapp.security;
 
 import com.edu.webapp.entity.user.User;
 import com.edu.webapp.repository.UserRepository;
+import com.edu.webapp.service.impl.DailyStatisticService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -31,6 +32,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final UserRepository userRepository;
 
+    private final DailyStatisticService dailyStatisticService;
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
         final String authorizationHeader = request.getHeader("Authorization");
@@ -53,8 +56,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 log.info("Successfully authenticated user: {}", username);
                 User user = (User) userDetails;
+                OffsetDateTime previousUptime = user.getUptime();
                 user.setUptime(OffsetDateTime.now());
                 userRepository.save(user);
+                dailyStatisticService.loggedIn(previousUptime);
             } else {
                 log.warn("Invalid JWT token for user: {}", username);
             }
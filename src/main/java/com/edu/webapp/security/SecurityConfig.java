@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -38,6 +39,10 @@ public class SecurityConfig {
 //                                .requestMatchers("/api/v1/users/phone-send-otp").permitAll()
 //                                .requestMatchers("/api/v1/users/verify-otp").permitAll()
 //                                .anyRequest().authenticated()
+                                        .requestMatchers("/actuator/health").permitAll()
+                                        .requestMatchers("/actuator/**").hasAuthority("ADMIN")
+                                        .requestMatchers("/api/v1/posts/reindex", "/api/v1/posts/search-cache-stats").hasAuthority("ADMIN")
+                                        .requestMatchers(HttpMethod.PUT, "/api/v1/posts/ranking").hasAuthority("ADMIN")
                                         .anyRequest().permitAll()
                 )
                 .csrf(AbstractHttpConfigurer::disable)
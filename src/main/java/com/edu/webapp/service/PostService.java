@@ -1,10 +1,15 @@
 package com.edu.webapp.service;
 
+import com.edu.webapp.config.RankingConfig;
 import com.edu.webapp.model.enums.ActiveStatus;
+import com.edu.webapp.model.page.CursorPage;
+import com.edu.webapp.model.page.FacetPage;
 import com.edu.webapp.model.request.*;
+import com.edu.webapp.model.response.CacheStatsRes;
 import com.edu.webapp.model.response.CommentRes;
 import com.edu.webapp.model.response.PostRes;
 import com.edu.webapp.model.response.PostUserRes;
+import com.edu.webapp.model.response.ReindexRes;
 import org.springframework.data.domain.Page;
 
 import java.io.IOException;
@@ -13,7 +18,21 @@ import java.util.List;
 public interface PostService {
     void createPost(PostCreateReq postCreateReq);
 
-    Page<PostRes> search(FilterPostReq filterPostReq) throws IOException;
+    FacetPage<PostRes> search(FilterPostReq filterPostReq) throws IOException;
+
+    CursorPage<PostRes> searchAfter(FilterPostReq filterPostReq) throws IOException;
+
+    CacheStatsRes searchCacheStats();
+
+    ReindexRes reindex() throws IOException;
+
+    ReindexRes reindexStatus();
+
+    List<String> suggest(String key, Integer size);
+
+    RankingConfig getRanking();
+
+    RankingConfig updateRanking(RankingReq rankingReq);
 
     PostRes getPostById(String id);
 
@@ -35,7 +54,7 @@ public interface PostService {
 
     PostRes updatePostStatus(PostUpdateStatusReq postUpdateStatusReq);
 
-    List<PostRes> top10Comment();
+    List<PostRes> top10Comment() throws IOException;
 
-    List<PostRes> top10Like();
+    List<PostRes> top10Like() throws IOException;
 }
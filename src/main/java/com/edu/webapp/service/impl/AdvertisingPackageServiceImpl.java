@@ -38,6 +38,7 @@ public class AdvertisingPackageServiceImpl implements AdvertisingPackageService
     private final AdvertisingPackageRepository advertisingPackageRepository;
     private final AdvertisingPackageMapper advertisingPackageMapper;
     private final JwtCommon jwtCommon;
+    private final DailyStatisticService dailyStatisticService;
     private final UserRepository userRepository;
     private final PayAdRepository payAdRepository;
     private final PayAdMapper payAdMapper;
@@ -101,6 +102,7 @@ public class AdvertisingPackageServiceImpl implements AdvertisingPackageService
         payAd.setType(advertisingPackage.getType());
         payAd.setDescription(advertisingPackage.getAdvertisingName());
         payAdRepository.save(payAd);
+        dailyStatisticService.packagePurchased();
         PayAdRes payAdRes = payAdMapper.payAdToPayAdRes(payAd);
         payAdRes.setUrlPayment(vnPayService.createOrder(payAd.getId().toString(), (int) payAd.getPrice(), "Thanh toan don hang " + (int) payAd.getPrice(), "http://localhost:8888/api/v1"));
         return payAdRes;
@@ -118,11 +120,13 @@ public class AdvertisingPackageServiceImpl implements AdvertisingPackageService
             AdvertisingPackage advertisingPackage = advertisingPackageRepository.findById(payAd.getAdvertisingPackage())
                     .orElseThrow(() -> new ValidateException(ErrorCodes.ADVERTISING_PACKAGE_VALID));
             LocalDate rechargeVip = user.getRechargeVip();
+            LocalDate previousRechargeVip = rechargeVip;
             if (rechargeVip != null) {
                 rechargeVip.plusDays(advertisingPackage.getCountDate());
             } else rechargeVip = LocalDate.now().plusDays(advertisingPackage.getCountDate());
             user.setRechargeVip(rechargeVip);
             userRepository.save(user);
+            dailyStatisticService.vipExpiryChanged(previousRechargeVip, rechargeVip);
         } catch (InterruptedException e) {
             log.error(e.getMessage(), e);
         }
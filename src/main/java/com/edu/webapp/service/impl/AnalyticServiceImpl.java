@@ -1,76 +1,172 @@
 package com.edu.webapp.service.impl;
 
+import com.edu.webapp.entity.post.MonthlyEngagement;
 import com.edu.webapp.entity.post.ReportPost;
-import com.edu.webapp.model.enums.ActiveStatus;
+import com.edu.webapp.entity.user.DailyStatistic;
 import com.edu.webapp.model.request.ReportReq;
 import com.edu.webapp.model.response.Report1Res;
 import com.edu.webapp.model.response.Report2Res;
 import com.edu.webapp.model.response.Report3Res;
 import com.edu.webapp.model.response.Report4Res;
-import com.edu.webapp.repository.*;
 import com.edu.webapp.service.AnalyticService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.sql.Date;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class AnalyticServiceImpl implements AnalyticService {
+    private static final String REPORT_1 = "report1";
+    private static final String REPORT_2 = "report2";
+    private static final String REPORT_3 = "report3";
+    private static final String REPORT_4 = "report4";
 
-    private final UserRepository userRepository;
+    private final ReportPostService reportPostService;
+    private final MonthlyEngagementService monthlyEngagementService;
+    private final DailyStatisticService dailyStatisticService;
+    private final ThreadPoolTaskExecutor taskExecutorAnalytic;
 
-    private final PayAdRepository payAdRepository;
+    @Value("${app.analytic-cache.refresh-after:60}")
+    private long refreshAfter;
 
-    private final ReportPostRepository reportPostRepository;
-    private final PostRepository postRepository;
-    private final CommentRepository commentRepository;
-    private final LikePostRepository likePostRepository;
+    @Value("${app.analytic-cache.expire-after-access:3600}")
+    private long expireAfterAccess;
+
+    @Value("${app.analytic-cache.maximum-size:500}")
+    private long maximumSize;
+
+    // A report older than refreshAfter is still served while a reload runs on taskExecutorAnalytic
+    private LoadingCache<AnalyticCacheKey, Object> cacheAnalytic;
+
+    @PostConstruct
+    public void init() {
+        cacheAnalytic = Caffeine.newBuilder()
+                .refreshAfterWrite(refreshAfter, TimeUnit.SECONDS)
+                .expireAfterAccess(expireAfterAccess, TimeUnit.SECONDS)
+                .maximumSize(maximumSize)
+                .executor(taskExecutorAnalytic)
+                .build(this::load);
+    }
 
     @Override
     public Report1Res report1(ReportReq reportReq) {
-        Report1Res report1Res = new Report1Res();
-        report1Res.setRegistrationCount(userRepository.registrationCount(reportReq.getStartDate(), reportReq.getEndDate()));
-        report1Res.setLoginCount(userRepository.loginCount(reportReq.getStartDate(), reportReq.getEndDate()));
-        report1Res.setExpiredUserCount(userRepository.expiredUserCount(reportReq.getStartDate(), reportReq.getEndDate()));
-        report1Res.setPackagePurchaseCount(payAdRepository.packagePurchaseCount(reportReq.getStartDate(), reportReq.getEndDate()));
-        return report1Res;
+        return (Report1Res) cacheAnalytic.get(buildKey(REPORT_1, reportReq));
     }
 
     @Override
     public Report2Res report2(ReportReq reportReq) {
-        Report2Res report2Res = new Report2Res();
-        report2Res.setRegisters(userRepository.registrationCount(reportReq.getStartDate(), reportReq.getEndDate()));
-        report2Res.setMembers(payAdRepository.packagePurchaseCount(reportReq.getStartDate(), reportReq.getEndDate()));
-        return report2Res;
+        return (Report2Res) cacheAnalytic.get(buildKey(REPORT_2, reportReq));
     }
 
     @Override
     public Report3Res report3(ReportReq reportReq) {
-        ReportPost reportPost = new ReportPost();
-        LocalDate today = LocalDate.now();
-        Date sqlDate = Date.valueOf(today);
-        reportPostRepository.deleteByCreatedAt(sqlDate);
-        reportPost.setPostActive(postRepository.countByActive(ActiveStatus.ACTIVE));
-        reportPost.setPostInactive(postRepository.countByActive(ActiveStatus.INACTIVE));
-        reportPost.setPostPending(postRepository.countByActive(ActiveStatus.PENDING));
-        reportPost.setPostReject(postRepository.countByActive(ActiveStatus.REJECT));
-        reportPostRepository.save(reportPost);
-        Report3Res report3Res = new Report3Res();
-        report3Res.setPostActive(reportPostRepository.postActiveCount(reportReq.getStartDate(), reportReq.getEndDate()));
-        report3Res.setPostInactive(reportPostRepository.postInactiveCount(reportReq.getStartDate(), reportReq.getEndDate()));
-        report3Res.setPostPending(reportPostRepository.postPendingCount(reportReq.getStartDate(), reportReq.getEndDate()));
-        report3Res.setPostReject(reportPostRepository.postRejectCount(reportReq.getStartDate(), reportReq.getEndDate()));
-        return report3Res;
+        return (Report3Res) cacheAnalytic.get(buildKey(REPORT_3, reportReq));
     }
 
     @Override
     public Report4Res report4() {
+        return (Report4Res) cacheAnalytic.get(new AnalyticCacheKey(REPORT_4, null, null));
+    }
+
+    // Reloads every report an admin has asked for recently, and keeps report 4 warm, so dashboard loads are served from memory
+    @Scheduled(fixedDelayString = "${app.analytic-cache.refresh-interval:300000}")
+    public void refresh() {
+        Set<AnalyticCacheKey> keys = new HashSet<>(cacheAnalytic.asMap().keySet());
+        keys.add(new AnalyticCacheKey(REPORT_4, null, null));
+        keys.forEach(cacheAnalytic::refresh);
+    }
+
+    private Object load(AnalyticCacheKey key) {
+        return switch (key.getReport()) {
+            case REPORT_1 -> buildReport1(key.getStartDate(), key.getEndDate());
+            case REPORT_2 -> buildReport2(key.getStartDate(), key.getEndDate());
+            case REPORT_3 -> buildReport3(key.getStartDate(), key.getEndDate());
+            default -> buildReport4();
+        };
+    }
+
+    private Report1Res buildReport1(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, DailyStatistic> statistics = dailyStatisticService.findRange(startDate, endDate);
+        Report1Res report1Res = new Report1Res();
+        report1Res.setRegistrationCount(series(statistics, startDate, endDate, DailyStatistic::getRegistrations));
+        report1Res.setLoginCount(series(statistics, startDate, endDate, DailyStatistic::getLogins));
+        report1Res.setExpiredUserCount(series(statistics, startDate, endDate, DailyStatistic::getVipExpiries));
+        report1Res.setPackagePurchaseCount(series(statistics, startDate, endDate, DailyStatistic::getPackagePurchases));
+        return report1Res;
+    }
+
+    private Report2Res buildReport2(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, DailyStatistic> statistics = dailyStatisticService.findRange(startDate, endDate);
+        Report2Res report2Res = new Report2Res();
+        report2Res.setRegisters(series(statistics, startDate, endDate, DailyStatistic::getRegistrations));
+        report2Res.setMembers(series(statistics, startDate, endDate, DailyStatistic::getPackagePurchases));
+        return report2Res;
+    }
+
+    private Report3Res buildReport3(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, ReportPost> reportPosts = reportPostService.findRange(startDate, endDate);
+        Report3Res report3Res = new Report3Res();
+        report3Res.setPostActive(series(reportPosts, startDate, endDate, ReportPost::getPostActive));
+        report3Res.setPostInactive(series(reportPosts, startDate, endDate, ReportPost::getPostInactive));
+        report3Res.setPostPending(series(reportPosts, startDate, endDate, ReportPost::getPostPending));
+        report3Res.setPostReject(series(reportPosts, startDate, endDate, ReportPost::getPostReject));
+        return report3Res;
+    }
+
+    private Report4Res buildReport4() {
+        Map<YearMonth, MonthlyEngagement> months = monthlyEngagementService.findLastMonths();
         Report4Res report4Res = new Report4Res();
-        report4Res.setTime(commentRepository.get12Month());
-        report4Res.setComment(commentRepository.countLikeByMonth());
-        report4Res.setLike(likePostRepository.countLikeByMonth());
+        report4Res.setTime(months.keySet().stream().map(YearMonth::toString).toList());
+        report4Res.setComment(months.values().stream().map(MonthlyEngagement::getComments).toList());
+        report4Res.setLike(months.values().stream().map(MonthlyEngagement::getLikes).toList());
         return report4Res;
     }
+
+    // One value per day from startDate to endDate inclusive; days without a row count as 0
+    private <T> List<Integer> series(Map<LocalDate, T> rows, LocalDate startDate, LocalDate endDate, Function<T, Integer> value) {
+        List<Integer> result = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            T row = rows.get(day);
+            Integer count = row == null ? null : value.apply(row);
+            result.add(count == null ? 0 : count);
+        }
+        return result;
+    }
+
+    private AnalyticCacheKey buildKey(String report, ReportReq reportReq) {
+        return new AnalyticCacheKey(report, toLocalDate(reportReq.getStartDate()), toLocalDate(reportReq.getEndDate()));
+    }
+
+    private LocalDate toLocalDate(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class AnalyticCacheKey {
+        private String report;
+        private LocalDate startDate;
+        private LocalDate endDate;
+    }
 }
@@ -0,0 +1,106 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.entity.user.DailyStatistic;
+import com.edu.webapp.repository.DailyStatisticRepository;
+import com.edu.webapp.repository.PayAdRepository;
+import com.edu.webapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * One DAILY_STATISTIC row per day for the user and payment charts. Events add to today's row as they happen,
+ * and the nightly job recounts the finished day from the source tables with indexed range reads.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DailyStatisticService {
+    private static final int REGISTRATIONS = 0;
+    private static final int LOGINS = 1;
+    private static final int VIP_EXPIRIES = 2;
+    private static final int PACKAGE_PURCHASES = 3;
+
+    private final DailyStatisticRepository dailyStatisticRepository;
+    private final UserRepository userRepository;
+    private final PayAdRepository payAdRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public void registered() {
+        increase(LocalDate.now(), REGISTRATIONS, 1);
+    }
+
+    // Counts a user once per day, on the first authenticated request of that day
+    public void loggedIn(OffsetDateTime previousUptime) {
+        LocalDate today = LocalDate.now();
+        if (previousUptime == null || previousUptime.atZoneSameInstant(ZoneId.systemDefault()).toLocalDate().isBefore(today))
+            increase(today, LOGINS, 1);
+    }
+
+    public void packagePurchased() {
+        increase(LocalDate.now(), PACKAGE_PURCHASES, 1);
+    }
+
+    public void vipExpiryChanged(LocalDate previous, LocalDate current) {
+        if (Objects.equals(previous, current)) return;
+        if (previous != null) increase(previous, VIP_EXPIRIES, -1);
+        if (current != null) increase(current, VIP_EXPIRIES, 1);
+    }
+
+    public Map<LocalDate, DailyStatistic> findRange(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, DailyStatistic> statistics = new HashMap<>();
+        dailyStatisticRepository.findByStatDateBetweenOrderByStatDate(startDate, endDate)
+                .forEach(statistic -> statistics.put(statistic.getStatDate(), statistic));
+        return statistics;
+    }
+
+    public void finalizeDay(LocalDate day) {
+        OffsetDateTime from = startOf(day);
+        OffsetDateTime to = startOf(day.plusDays(1));
+        dailyStatisticRepository.replace(day,
+                (int) userRepository.countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(from, to),
+                (int) userRepository.countByUptimeGreaterThanEqualAndUptimeLessThan(from, to),
+                (int) userRepository.countByRechargeVip(day),
+                (int) payAdRepository.countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(from, to));
+    }
+
+    // Fills the table from the source tables the first time it is empty; this is the only full scan it ever needs
+    public void backfill() {
+        if (dailyStatisticRepository.count() > 0) return;
+        Map<LocalDate, int[]> days = new TreeMap<>();
+        collect(days, REGISTRATIONS, "SELECT DATE(created_at), COUNT(*) FROM user WHERE created_at IS NOT NULL GROUP BY DATE(created_at)");
+        collect(days, LOGINS, "SELECT DATE(uptime), COUNT(*) FROM user WHERE uptime IS NOT NULL GROUP BY DATE(uptime)");
+        collect(days, VIP_EXPIRIES, "SELECT recharge_vip, COUNT(*) FROM user WHERE recharge_vip IS NOT NULL GROUP BY recharge_vip");
+        collect(days, PACKAGE_PURCHASES, "SELECT DATE(created_at), COUNT(*) FROM pay_ad WHERE created_at IS NOT NULL GROUP BY DATE(created_at)");
+        days.forEach((day, counts) -> dailyStatisticRepository.replace(day, counts[REGISTRATIONS], counts[LOGINS], counts[VIP_EXPIRIES], counts[PACKAGE_PURCHASES]));
+        log.info("Backfilled daily statistics for {} days", days.size());
+    }
+
+    private void collect(Map<LocalDate, int[]> days, int column, String sql) {
+        jdbcTemplate.query(sql, rs -> {
+            days.computeIfAbsent(rs.getDate(1).toLocalDate(), day -> new int[4])[column] = rs.getInt(2);
+        });
+    }
+
+    private void increase(LocalDate day, int column, int delta) {
+        try {
+            dailyStatisticRepository.increase(day,
+                    column == REGISTRATIONS ? delta : 0,
+                    column == LOGINS ? delta : 0,
+                    column == VIP_EXPIRIES ? delta : 0,
+                    column == PACKAGE_PURCHASES ? delta : 0);
+        } catch (Exception e) {
+            log.error("Update daily statistic {} failed, the nightly recount will correct it: {}", day, e.getMessage());
+        }
+    }
+
+    private OffsetDateTime startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toOffsetDateTime();
+    }
+}
@@ -1,14 +1,31 @@
 package com.edu.webapp.service.impl;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.SortOptions;
 import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionBoostMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionScore;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionScoreMode;
 import co.elastic.clients.elasticsearch._types.query_dsl.FunctionScoreQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+import com.edu.webapp.config.RankingConfig;
+import com.edu.webapp.error.ErrorCodes;
+import com.edu.webapp.error.ValidateException;
+import com.edu.webapp.model.dto.SearchCursorDto;
+import com.edu.webapp.model.page.CursorPage;
+import com.edu.webapp.model.page.FacetPage;
+import com.edu.webapp.model.response.FacetRes;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -17,33 +34,184 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ElasticsearchService<T> {
+    private static final String PIT_KEEP_ALIVE = "2m";
+    private static final String TIEBREAKER_FIELD = "id";
+    // Sub-aggregation holding the buckets of a facet wrapped in a filter aggregation
+    public static final String FACET_VALUES = "values";
+
     private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchAsyncClient elasticsearchAsyncClient;
+    private final ObjectMapper objectMapper;
+
+    public Page<T> search(String indexName, BoolQuery boolQuery, int page, int size, Class<T> clazz, List<SortOptions> sortOptions) throws IOException {
+        return search(indexName, Query.of(q -> q.bool(boolQuery)), null, page, size, clazz, sortOptions, new HashMap<>());
+    }
+
+    /**
+     * Ranks the bool query's hits by relevance plus the VIP and freshness boosts. The boosts are added rather than
+     * multiplied: a filter-only query scores every hit 0, and multiplying would cancel the boosts on a plain browse.
+     */
+    public Query functionScore(BoolQuery boolQuery, RankingConfig rankingConfig) {
+        List<FunctionScore> functions = new ArrayList<>();
+        functions.add(FunctionScore.of(f -> f
+                .filter(q -> q.term(t -> t.field("vip").value(1)))
+                .weight(rankingConfig.getVipWeight())));
+        // Freshness is measured from the start of the hour, so scores do not shift between pages of one listing
+        functions.add(FunctionScore.of(f -> f
+                .gauss(g -> g.field("updatedAt").placement(p -> p
+                        .origin(JsonData.of("now/h"))
+                        .scale(JsonData.of(rankingConfig.getFreshnessScale()))
+                        .offset(JsonData.of(rankingConfig.getFreshnessOffset()))
+                        .decay(rankingConfig.getFreshnessDecay())))
+                .weight(rankingConfig.getFreshnessWeight())));
+        return Query.of(q -> q.functionScore(FunctionScoreQuery.of(fs -> fs
+                .query(qb -> qb.bool(boolQuery))
+                .functions(functions)
+                .scoreMode(FunctionScoreMode.Sum)
+                .boostMode(FunctionBoostMode.Sum))));
+    }
+
+    // Aggregations run over the query only; postFilter, when given, narrows the hits after the aggregations are taken
+    public FacetPage<T> search(String indexName, Query query, Query postFilter, int page, int size, Class<T> clazz, List<SortOptions> sortOptions, Map<String, Aggregation> aggregations) throws IOException {
+        SearchRequest request = buildSearchRequest(indexName, query, postFilter, page, size, sortOptions, aggregations);
+        return toFacetPage(elasticsearchClient.search(request, clazz), page, size);
+    }
 
-    public Page<T> search(String indexName, BoolQuery boolQuery, int page, int size, Class<T> clazz, Map<String, SortOrder> map) throws IOException {
-        Query query = Query.of(q -> q.bool(boolQuery));
-        SearchRequest request = SearchRequest.of(s -> s
-                        .index(indexName)
-                        .from(page * size)
-                        .query(query)
-                        .size(10)
-                        .sort(sort -> {
-                            map.forEach((k, v) -> sort.field(f-> f.field(k).order(v)));
-                            return sort;
-                        })
-        );
-        SearchResponse<T> response = elasticsearchClient.search(request, clazz);
+    // Same as search, without holding the calling thread while Elasticsearch works
+    public CompletableFuture<FacetPage<T>> searchAsync(String indexName, Query query, Query postFilter, int page, int size, Class<T> clazz, List<SortOptions> sortOptions, Map<String, Aggregation> aggregations) {
+        SearchRequest request = buildSearchRequest(indexName, query, postFilter, page, size, sortOptions, aggregations);
+        return elasticsearchAsyncClient.search(request, clazz).thenApply(response -> toFacetPage(response, page, size));
+    }
+
+    private SearchRequest buildSearchRequest(String indexName, Query query, Query postFilter, int page, int size, List<SortOptions> sortOptions, Map<String, Aggregation> aggregations) {
+        return SearchRequest.of(s -> {
+            s.index(indexName)
+                    .from(page * size)
+                    .query(query)
+                    .size(size)
+                    .sort(sortOptions)
+                    .aggregations(aggregations);
+            if (postFilter != null) s.postFilter(postFilter);
+            return s;
+        });
+    }
+
+    private FacetPage<T> toFacetPage(SearchResponse<T> response, int page, int size) {
         assert response.hits().total() != null;
         long totalHits = response.hits().total().value();
         List<T> content = response.hits().hits().stream()
                 .map(Hit::source)
                 .toList();
-        return new PageImpl<>(content, PageRequest.of(page, size), totalHits);
+        Map<String, List<FacetRes>> facets = new LinkedHashMap<>();
+        response.aggregations().forEach((name, aggregate) -> facets.put(name, toFacets(aggregate)));
+        return new FacetPage<>(content, PageRequest.of(page, size), totalHits, facets);
+    }
+
+    /**
+     * Cursor pagination over a point-in-time, so the cost of a page does not grow with its depth.
+     * A null cursor opens a new point-in-time; the returned cursor is null once the results are exhausted.
+     */
+    public CursorPage<T> searchAfter(String indexName, Query query, int size, Class<T> clazz, List<SortOptions> sort, String cursor) throws IOException {
+        SearchCursorDto searchCursor = cursor == null ? new SearchCursorDto() : decodeCursor(cursor);
+        String pitId = searchCursor.getPit() != null ? searchCursor.getPit() : elasticsearchClient.openPointInTime(p -> p
+                .index(indexName)
+                .keepAlive(k -> k.time(PIT_KEEP_ALIVE))).id();
+        List<SortOptions> sortOptions = new ArrayList<>(sort);
+        sortOptions.add(SortOptions.of(so -> so.field(f -> f.field(TIEBREAKER_FIELD).order(SortOrder.Asc))));
+        SearchRequest request = SearchRequest.of(s -> {
+            s.pit(p -> p.id(pitId).keepAlive(k -> k.time(PIT_KEEP_ALIVE)))
+                    .query(query)
+                    .size(size)
+                    .sort(sortOptions);
+            if (searchCursor.getAfter() != null)
+                s.searchAfter(searchCursor.getAfter().stream().map(FieldValue::of).toList());
+            return s;
+        });
+        SearchResponse<T> response = searchWithCursor(request, clazz, searchCursor);
+        List<Hit<T>> hits = response.hits().hits();
+        long totalHits = response.hits().total() != null ? response.hits().total().value() : hits.size();
+        String nextPit = response.pitId() != null ? response.pitId() : pitId;
+        String nextCursor = null;
+        if (hits.size() < size) {
+            closePointInTime(nextPit);
+        } else {
+            List<Object> after = hits.get(hits.size() - 1).sort().stream().map(FieldValue::_get).toList();
+            nextCursor = encodeCursor(new SearchCursorDto(nextPit, after));
+        }
+        List<T> content = hits.stream().map(Hit::source).toList();
+        return new CursorPage<>(content, PageRequest.of(0, size), totalHits, nextCursor);
+    }
+
+    // An expired or unknown point-in-time, or sort values that do not fit the sort, is the caller's cursor being stale
+    private SearchResponse<T> searchWithCursor(SearchRequest request, Class<T> clazz, SearchCursorDto searchCursor) throws IOException {
+        try {
+            return elasticsearchClient.search(request, clazz);
+        } catch (ElasticsearchException e) {
+            if (searchCursor.getPit() != null && (e.status() == 400 || e.status() == 404))
+                throw new ValidateException(ErrorCodes.SEARCH_CURSOR_INVALID);
+            throw e;
+        }
+    }
+
+    private List<FacetRes> toFacets(Aggregate aggregate) {
+        if (aggregate.isFilter()) {
+            Aggregate values = aggregate.filter().aggregations().get(FACET_VALUES);
+            return values == null ? new ArrayList<>() : toFacets(values);
+        }
+        if (aggregate.isSterms()) {
+            return aggregate.sterms().buckets().array().stream()
+                    .map(bucket -> new FacetRes(bucket.key().stringValue(), bucket.docCount()))
+                    .toList();
+        }
+        if (aggregate.isLterms()) {
+            return aggregate.lterms().buckets().array().stream()
+                    .map(bucket -> new FacetRes(String.valueOf(bucket.key()), bucket.docCount()))
+                    .toList();
+        }
+        if (aggregate.isHistogram()) {
+            return aggregate.histogram().buckets().array().stream()
+                    .map(bucket -> new FacetRes(formatKey(bucket.key()), bucket.docCount()))
+                    .toList();
+        }
+        return new ArrayList<>();
+    }
+
+    // Histogram keys are doubles: 1.0E7 reads as 10000000, while a fractional interval keeps its 2.5
+    private String formatKey(double key) {
+        return BigDecimal.valueOf(key).stripTrailingZeros().toPlainString();
+    }
+
+    private void closePointInTime(String pitId) {
+        try {
+            elasticsearchClient.closePointInTime(c -> c.id(pitId));
+        } catch (Exception e) {
+            log.warn("Close point in time failed: {}", e.getMessage());
+        }
+    }
+
+    private String encodeCursor(SearchCursorDto searchCursor) throws IOException {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(searchCursor));
+    }
+
+    private SearchCursorDto decodeCursor(String cursor) {
+        try {
+            return objectMapper.readValue(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8), SearchCursorDto.class);
+        } catch (Exception e) {
+            throw new ValidateException(ErrorCodes.SEARCH_CURSOR_INVALID);
+        }
     }
 }
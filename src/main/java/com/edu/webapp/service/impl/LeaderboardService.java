@@ -0,0 +1,147 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.model.dto.PostCommentDto;
+import com.edu.webapp.model.dto.PostLikeDto;
+import com.edu.webapp.repository.PostRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Most liked / most commented posts, kept up to date from like and comment events instead of aggregating
+ * on every read. Readers get the ranking published by the last publish run. Both counts live on POST
+ * (LIKE_COUNT, COMMENT_COUNT), so first-seen posts and the resync read one indexed column instead of aggregating.
+ */
+@Service
+@Slf4j
+public class LeaderboardService {
+    private final PostRepository postRepository;
+    private final Board likeBoard;
+    private final Board commentBoard;
+
+    // Posts ranked beyond the top K are kept as candidates, so hidden posts can be skipped without leaving the board short
+    @Value("${app.leaderboard.candidates:50}")
+    private int candidates;
+
+    public LeaderboardService(PostRepository postRepository) {
+        this.postRepository = postRepository;
+        this.likeBoard = new Board(postRepository::findLikeCountById);
+        this.commentBoard = new Board(postRepository::findCommentCountById);
+    }
+
+    public void likeChanged(String postId, boolean liked) {
+        afterCommit(() -> likeBoard.increase(postId, liked ? 1 : -1));
+    }
+
+    public void commentAdded(String postId) {
+        afterCommit(() -> commentBoard.increase(postId, 1));
+    }
+
+    public List<Entry> topLiked() {
+        return likeBoard.top;
+    }
+
+    public List<Entry> topCommented() {
+        return commentBoard.top;
+    }
+
+    @Scheduled(fixedDelayString = "${app.leaderboard.publish-interval:10000}")
+    public void publish() {
+        likeBoard.publish(candidates);
+        commentBoard.publish(candidates);
+    }
+
+    // Re-reads the exact counts of the current leaders, which also corrects drift from events handled by other instances
+    @Scheduled(fixedDelayString = "${app.leaderboard.resync-interval:3600000}")
+    public void resync() {
+        try {
+            for (PostLikeDto dto : postRepository.findTopLikeCount(PageRequest.of(0, candidates)))
+                likeBoard.set(dto.getPostId(), dto.getTotalLike());
+            for (PostCommentDto dto : postRepository.findTopCommentCount(PageRequest.of(0, candidates)))
+                commentBoard.set(dto.getPostId(), dto.getTotalComment());
+            publish();
+        } catch (Exception e) {
+            log.error("Resync leaderboards failed: {}", e.getMessage());
+        }
+    }
+
+    // A first-seen post is loaded from MySQL, which must already include the change or it would be counted twice
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else action.run();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final String postId;
+        private final long count;
+    }
+
+    private static class Board {
+        private final Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+        private final Function<String, Long> countLoader;
+        private volatile List<Entry> top = new ArrayList<>();
+
+        private Board(Function<String, Long> countLoader) {
+            this.countLoader = countLoader;
+        }
+
+        // Only called after the write is committed; a post seen for the first time is counted from MySQL, which already includes it
+        private void increase(String postId, long delta) {
+            AtomicLong count = counts.get(postId);
+            if (count != null) {
+                count.addAndGet(delta);
+                return;
+            }
+            Long loaded = countLoader.apply(postId);
+            if (loaded == null) return;
+            // Another event loaded the same post meanwhile; keep its value and still count this change
+            AtomicLong existing = counts.putIfAbsent(postId, new AtomicLong(loaded));
+            if (existing != null) existing.addAndGet(delta);
+        }
+
+        private void set(String postId, long count) {
+            counts.computeIfAbsent(postId, key -> new AtomicLong()).set(count);
+        }
+
+        private void publish(int size) {
+            PriorityQueue<Entry> heap = new PriorityQueue<>(Comparator.comparingLong(Entry::getCount));
+            counts.forEach((postId, count) -> {
+                long value = count.get();
+                if (value <= 0) return;
+                if (heap.size() < size) heap.add(new Entry(postId, value));
+                else if (value > heap.peek().getCount()) {
+                    heap.poll();
+                    heap.add(new Entry(postId, value));
+                }
+            });
+            List<Entry> ranked = new ArrayList<>(heap);
+            ranked.sort(Comparator.comparingLong(Entry::getCount).reversed());
+            top = ranked;
+            // Only the ranked posts stay in memory; an evicted post is loaded again from MySQL on its next event
+            Set<String> kept = new HashSet<>();
+            ranked.forEach(entry -> kept.add(entry.getPostId()));
+            counts.forEach((postId, count) -> {
+                if (!kept.contains(postId)) counts.remove(postId, count);
+            });
+        }
+    }
+}
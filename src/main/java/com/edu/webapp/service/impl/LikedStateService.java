@@ -0,0 +1,116 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.entity.user.User;
+import com.edu.webapp.error.ErrorCodes;
+import com.edu.webapp.error.ValidateException;
+import com.edu.webapp.repository.LikePostRepository;
+import com.edu.webapp.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LikedStateService {
+    private static final int MAX_LIKED_PER_USER = 5000;
+    // Marks a user with more likes than MAX_LIKED_PER_USER, whose posts are looked up per request instead
+    private static final String[] NOT_CACHED = new String[0];
+
+    private final LikePostRepository likePostRepository;
+    private final UserRepository userRepository;
+
+    // Sorted ids of every post a user likes, a post missing from the array is not liked. Weighted by id count so the
+    // whole cache stays bounded however the likes are spread across users
+    private final Cache<String, String[]> cacheLiked = Caffeine.newBuilder()
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .maximumWeight(500_000)
+            .weigher((String userId, String[] liked) -> liked.length + 1)
+            .build();
+
+    public Map<String, Boolean> getLiked(String username, Collection<String> postIds) {
+        if (username == null || postIds.isEmpty()) return new HashMap<>();
+        return getLikedByUserId(resolveUserId(username), postIds);
+    }
+
+    public Map<String, Boolean> getLikedByUserId(String userId, Collection<String> postIds) {
+        if (postIds.isEmpty()) return new HashMap<>();
+        String[] liked = cacheLiked.get(userId, this::loadLiked);
+        Map<String, Boolean> result = new HashMap<>();
+        if (liked == NOT_CACHED) {
+            Set<String> found = new HashSet<>(likePostRepository.findLikedPostIds(userId, postIds));
+            for (String postId : postIds) result.put(postId, found.contains(postId));
+            return result;
+        }
+        for (String postId : postIds) result.put(postId, Arrays.binarySearch(liked, postId) >= 0);
+        return result;
+    }
+
+    private String[] loadLiked(String userId) {
+        List<String> postIds = likePostRepository.findLikedPostIdsByUserId(userId, PageRequest.of(0, MAX_LIKED_PER_USER + 1));
+        if (postIds.size() > MAX_LIKED_PER_USER) return NOT_CACHED;
+        String[] liked = postIds.toArray(new String[0]);
+        Arrays.sort(liked);
+        return liked;
+    }
+
+    // Applied once the caller's transaction commits, so a concurrent load cannot read the old row after the new state was put
+    public void likeChanged(String userId, String postId, boolean liked) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    putState(userId, postId, liked);
+                }
+            });
+        } else putState(userId, postId, liked);
+    }
+
+    // computeIfPresent waits for a load of the same user still in flight, so a load that read the old row gets patched too
+    private void putState(String userId, String postId, boolean liked) {
+        cacheLiked.asMap().computeIfPresent(userId, (key, current) -> current == NOT_CACHED ? current : withState(current, postId, liked));
+    }
+
+    private static String[] withState(String[] current, String postId, boolean liked) {
+        int index = Arrays.binarySearch(current, postId);
+        if (liked == index >= 0) return current;
+        if (!liked) {
+            String[] next = new String[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+            return next;
+        }
+        if (current.length >= MAX_LIKED_PER_USER) return NOT_CACHED;
+        int insert = -index - 1;
+        String[] next = new String[current.length + 1];
+        System.arraycopy(current, 0, next, 0, insert);
+        next[insert] = postId;
+        System.arraycopy(current, insert, next, insert + 1, current.length - insert);
+        return next;
+    }
+
+    // The JWT filter already loaded the user as principal, so only fall back to MySQL outside an authenticated request
+    public String resolveUserId(String username) {
+        String userId = principalUserId(username);
+        if (userId != null) return userId;
+        return userRepository.findByEmail(username).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST)).getId();
+    }
+
+    // Reads the security context of the calling thread only, null when the principal is not this user
+    public String principalUserId(String username) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (username != null && authentication != null && authentication.getPrincipal() instanceof User user && username.equals(user.getEmail()))
+            return user.getId();
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.entity.post.MonthlyEngagement;
+import com.edu.webapp.repository.CommentRepository;
+import com.edu.webapp.repository.LikePostRepository;
+import com.edu.webapp.repository.MonthlyEngagementRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Comments and likes per month for report 4. Committed writes bump in-memory counters of the current month,
+ * which the flush adds to the row, so likes and comments never queue on the month's row lock; the monthly close-out recounts the chart window from the indexed CREATED_AT columns,
+ * which also takes back likes removed after the month they were given in.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MonthlyEngagementService {
+    public static final int MONTHS = 13;
+
+    private final MonthlyEngagementRepository monthlyEngagementRepository;
+    private final CommentRepository commentRepository;
+    private final LikePostRepository likePostRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<LocalDate, LongAdder> pendingComments = new ConcurrentHashMap<>();
+    private final Map<LocalDate, LongAdder> pendingLikes = new ConcurrentHashMap<>();
+
+    public void commentAdded() {
+        increase(1, 0);
+    }
+
+    public void likeAdded() {
+        increase(0, 1);
+    }
+
+    // The removed like may belong to an earlier month; the close-out corrects those
+    public void likeRemoved() {
+        increase(0, -1);
+    }
+
+    // The last MONTHS months up to and including the current one, oldest first; months without a row are empty
+    public Map<YearMonth, MonthlyEngagement> findLastMonths() {
+        YearMonth current = YearMonth.now();
+        Map<YearMonth, MonthlyEngagement> months = new LinkedHashMap<>();
+        for (int i = MONTHS - 1; i >= 0; i--) {
+            YearMonth month = current.minusMonths(i);
+            months.put(month, new MonthlyEngagement(month.atDay(1), 0, 0));
+        }
+        monthlyEngagementRepository.findByStatMonthBetweenOrderByStatMonth(current.minusMonths(MONTHS - 1).atDay(1), current.atDay(1))
+                .forEach(engagement -> months.put(YearMonth.from(engagement.getStatMonth()), engagement));
+        return months;
+    }
+
+    @Scheduled(fixedDelayString = "${app.monthly-engagement.flush-interval:5000}")
+    public void flush() {
+        Set<LocalDate> months = new HashSet<>(pendingComments.keySet());
+        months.addAll(pendingLikes.keySet());
+        for (LocalDate month : months) {
+            long comments = sumThenReset(pendingComments, month);
+            long likes = sumThenReset(pendingLikes, month);
+            if (comments == 0 && likes == 0) continue;
+            try {
+                monthlyEngagementRepository.increase(month, (int) comments, (int) likes);
+            } catch (Exception e) {
+                log.error("Flush monthly engagement {} failed, retry next run: {}", month, e.getMessage());
+                add(pendingComments, month, comments);
+                add(pendingLikes, month, likes);
+            }
+        }
+    }
+
+    // Pending counts are written first so the recount of the month that just ended is not added to afterwards
+    public void closeOut() {
+        flush();
+        YearMonth current = YearMonth.now();
+        for (int i = MONTHS - 1; i >= 1; i--) recount(current.minusMonths(i));
+        log.info("Closed out monthly engagement of {}", current.minusMonths(1));
+    }
+
+    // Fills the table from COMMENT and LIKE_POST the first time it is empty
+    public void backfill() {
+        if (monthlyEngagementRepository.count() > 0) return;
+        Map<LocalDate, int[]> months = new TreeMap<>();
+        collect(months, 0, "SELECT DATE_FORMAT(created_at, '%Y-%m-01'), COUNT(*) FROM comment WHERE created_at IS NOT NULL GROUP BY DATE_FORMAT(created_at, '%Y-%m-01')");
+        collect(months, 1, "SELECT DATE_FORMAT(created_at, '%Y-%m-01'), COUNT(*) FROM like_post WHERE created_at IS NOT NULL GROUP BY DATE_FORMAT(created_at, '%Y-%m-01')");
+        months.forEach((month, counts) -> monthlyEngagementRepository.replace(month, counts[0], counts[1]));
+        log.info("Backfilled monthly engagement for {} months", months.size());
+    }
+
+    private void recount(YearMonth month) {
+        OffsetDateTime from = startOf(month);
+        OffsetDateTime to = startOf(month.plusMonths(1));
+        monthlyEngagementRepository.replace(month.atDay(1),
+                (int) commentRepository.countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(from, to),
+                (int) likePostRepository.countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(from, to));
+    }
+
+    private void collect(Map<LocalDate, int[]> months, int column, String sql) {
+        jdbcTemplate.query(sql, rs -> {
+            months.computeIfAbsent(LocalDate.parse(rs.getString(1)), month -> new int[2])[column] = rs.getInt(2);
+        });
+    }
+
+    // Counted once the caller's transaction commits, so a rolled back like or comment never reaches the chart
+    private void increase(int comments, int likes) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count(comments, likes);
+                }
+            });
+        } else count(comments, likes);
+    }
+
+    private void count(int comments, int likes) {
+        LocalDate month = YearMonth.now().atDay(1);
+        add(pendingComments, month, comments);
+        add(pendingLikes, month, likes);
+    }
+
+    private void add(Map<LocalDate, LongAdder> pending, LocalDate month, long value) {
+        if (value != 0) pending.computeIfAbsent(month, key -> new LongAdder()).add(value);
+    }
+
+    // Months stay in the map; there is at most one new key a month
+    private long sumThenReset(Map<LocalDate, LongAdder> pending, LocalDate month) {
+        LongAdder adder = pending.get(month);
+        return adder == null ? 0 : adder.sumThenReset();
+    }
+
+    private OffsetDateTime startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toOffsetDateTime();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,73 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.model.response.PostRes;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Assembled post detail responses. Concurrent misses for the same id wait on a single load,
+ * and callers always get a copy, so changing a returned response never leaks into the cache.
+ * Invalidation inside a transaction waits for the commit, otherwise a concurrent miss could cache the old row again.
+ */
+@Service
+@Slf4j
+public class PostDetailCacheService {
+
+    @Value("${app.post-detail-cache.ttl:60}")
+    private long ttl;
+
+    @Value("${app.post-detail-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    private Cache<String, PostRes> cacheDetail;
+
+    @PostConstruct
+    public void init() {
+        cacheDetail = Caffeine.newBuilder()
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public PostRes get(String postId, Function<String, PostRes> loader) {
+        return copy(cacheDetail.get(postId, loader));
+    }
+
+    public void invalidate(String postId) {
+        afterCommit(() -> cacheDetail.invalidate(postId));
+    }
+
+    // Every cached post of this author carries the author card
+    public void invalidateAuthor(String email) {
+        afterCommit(() -> cacheDetail.asMap().values().removeIf(postRes -> Objects.equals(postRes.getCreatedBy(), email)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else action.run();
+    }
+
+    private PostRes copy(PostRes postRes) {
+        PostRes.UserPostRes userPostRes = postRes.getUserPostRes();
+        return postRes.toBuilder()
+                .userPostRes(userPostRes == null ? null : userPostRes.toBuilder().build())
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.entity.post.Post;
+import com.edu.webapp.entity.post.PostEls;
+import com.edu.webapp.entity.user.User;
+import com.edu.webapp.mapper.PostMapper;
+import com.edu.webapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PostIndexService {
+    private final PostMapper postMapper;
+    private final UserRepository userRepository;
+
+    // Authors are loaded once per batch; posts whose author is gone are skipped
+    public List<PostEls> buildDocuments(List<Post> posts) {
+        if (posts.isEmpty()) return new ArrayList<>();
+        Set<String> emails = posts.stream().map(Post::getCreatedBy).collect(Collectors.toSet());
+        Map<String, User> userMap = userRepository.findAllByEmailIn(emails).stream().collect(Collectors.toMap(User::getEmail, user -> user));
+        List<PostEls> documents = new ArrayList<>();
+        for (Post post : posts) {
+            User user = userMap.get(post.getCreatedBy());
+            if (user == null) {
+                log.warn("Skip indexing post {}, author {} not found", post.getId(), post.getCreatedBy());
+                continue;
+            }
+            PostEls postEls = postMapper.postToPostEls(post, user);
+            postEls.setTotalComment(post.getCommentCount() == null ? 0L : post.getCommentCount());
+            documents.add(postEls);
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,160 @@
+package com.edu.webapp.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import com.edu.webapp.entity.post.Post;
+import com.edu.webapp.entity.post.PostEls;
+import com.edu.webapp.entity.post.PostOutbox;
+import com.edu.webapp.model.enums.ActiveStatus;
+import com.edu.webapp.repository.PostOutboxRepository;
+import com.edu.webapp.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * MySQL to Elasticsearch sync for posts. Writers only insert a POST_OUTBOX row in their own transaction;
+ * the relay rebuilds each changed post from MySQL, so however many rows a post has, it is pushed once with its latest state.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PostOutboxService {
+    private static final String INDEX = "post";
+
+    private final PostOutboxRepository postOutboxRepository;
+    private final PostRepository postRepository;
+    private final PostIndexService postIndexService;
+    private final SearchCacheService searchCacheService;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ReindexService reindexService;
+
+    @Value("${app.post-outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.post-outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    public void enqueue(String postId) {
+        enqueue(postId, null);
+    }
+
+    public void enqueue(String postId, OffsetDateTime bumpedAt) {
+        PostOutbox postOutbox = new PostOutbox();
+        postOutbox.setPostId(postId);
+        postOutbox.setBumpedAt(bumpedAt);
+        postOutboxRepository.save(postOutbox);
+    }
+
+    public void enqueueMoved(String postId, String oldProvince, String oldDistrict) {
+        PostOutbox postOutbox = new PostOutbox();
+        postOutbox.setPostId(postId);
+        postOutbox.setOldProvince(oldProvince);
+        postOutbox.setOldDistrict(oldDistrict);
+        postOutboxRepository.save(postOutbox);
+    }
+
+    @Scheduled(fixedDelayString = "${app.post-outbox.relay-interval:1000}")
+    public void relay() {
+        List<PostOutbox> rows;
+        while (!(rows = postOutboxRepository.findPending(maxAttempts, PageRequest.of(0, batchSize))).isEmpty()) {
+            try {
+                Set<String> failed = push(rows);
+                List<Long> done = rows.stream().filter(row -> !failed.contains(row.getPostId())).map(PostOutbox::getId).toList();
+                if (!done.isEmpty()) postOutboxRepository.deleteByIdIn(done);
+                if (done.size() < rows.size()) {
+                    recordFailures(rows, failed);
+                    return;
+                }
+            } catch (Exception e) {
+                log.error("Relay post outbox failed, retry next run: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    // Rows ES keeps rejecting stop being relayed after maxAttempts runs, so they cannot fill every batch and stall the relay
+    private void recordFailures(List<PostOutbox> rows, Set<String> failed) {
+        List<PostOutbox> failedRows = rows.stream().filter(row -> failed.contains(row.getPostId())).toList();
+        postOutboxRepository.increaseAttempts(failedRows.stream().map(PostOutbox::getId).toList());
+        Set<String> deadLetters = failedRows.stream()
+                .filter(row -> (row.getAttempts() == null ? 0 : row.getAttempts()) + 1 >= maxAttempts)
+                .map(PostOutbox::getPostId)
+                .collect(Collectors.toSet());
+        if (!deadLetters.isEmpty())
+            log.error("Relay post outbox: gave up on posts {} after {} attempts, their rows are kept as dead letters", deadLetters, maxAttempts);
+    }
+
+    // Returns the post ids that did not make it into the index
+    private Set<String> push(List<PostOutbox> rows) throws Exception {
+        Map<String, OffsetDateTime> bumped = new HashMap<>();
+        for (PostOutbox row : rows) {
+            if (row.getBumpedAt() != null) bumped.merge(row.getPostId(), row.getBumpedAt(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        Set<String> postIds = rows.stream().map(PostOutbox::getPostId).collect(Collectors.toCollection(LinkedHashSet::new));
+        reindexService.postsChanged(postIds);
+        Map<String, Post> posts = postRepository.findWithImagesByIdIn(postIds).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        List<Post> active = posts.values().stream().filter(post -> post.getActive() == ActiveStatus.ACTIVE).toList();
+        List<PostEls> documents = postIndexService.buildDocuments(active);
+        Set<String> indexed = documents.stream().map(PostEls::getId).collect(Collectors.toSet());
+        List<String> deleted = postIds.stream().filter(id -> !indexed.contains(id)).toList();
+
+        Set<String> failed = new HashSet<>();
+        if (!documents.isEmpty()) {
+            for (PostEls document : documents) {
+                OffsetDateTime bumpedAt = bumped.get(document.getId());
+                if (bumpedAt != null) {
+                    document.setCreatedAt(Timestamp.from(bumpedAt.toInstant()));
+                    document.setUpdatedAt(Timestamp.from(bumpedAt.toInstant()));
+                }
+            }
+            List<IndexQuery> queries = documents.stream()
+                    .map(document -> new IndexQueryBuilder().withId(document.getId()).withObject(document).build())
+                    .toList();
+            try {
+                elasticsearchOperations.bulkIndex(queries, PostEls.class);
+            } catch (BulkFailureException e) {
+                log.warn("Relay post outbox: {} documents rejected", e.getFailedDocuments().size());
+                failed.addAll(e.getFailedDocuments().keySet());
+            }
+        }
+        if (!deleted.isEmpty()) {
+            List<BulkOperation> operations = deleted.stream()
+                    .map(id -> BulkOperation.of(o -> o.delete(d -> d.index(INDEX).id(id))))
+                    .toList();
+            BulkResponse response = elasticsearchClient.bulk(b -> b.operations(operations));
+            if (response.errors()) {
+                // A delete of a document that is not indexed comes back as not_found without an error
+                List<String> rejected = response.items().stream().filter(item -> item.error() != null).map(BulkResponseItem::id).toList();
+                log.warn("Relay post outbox: {} deletes rejected", rejected.size());
+                failed.addAll(rejected);
+            }
+        }
+        for (String postId : postIds) {
+            Post post = posts.get(postId);
+            if (post != null) searchCacheService.evict(post.getProvince(), post.getDistrict());
+        }
+        for (PostOutbox row : rows) {
+            if (row.getOldProvince() != null || row.getOldDistrict() != null)
+                searchCacheService.evict(row.getOldProvince(), row.getOldDistrict());
+        }
+        return failed;
+    }
+}
@@ -1,23 +1,31 @@
 package com.edu.webapp.service.impl;
 
+import co.elastic.clients.elasticsearch._types.DistanceUnit;
+import co.elastic.clients.elasticsearch._types.SortOptions;
 import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.json.JsonData;
+import com.edu.webapp.config.RankingConfig;
 import com.edu.webapp.entity.post.*;
 import com.edu.webapp.entity.user.User;
 import com.edu.webapp.error.ErrorCodes;
 import com.edu.webapp.error.ValidateException;
 import com.edu.webapp.mapper.CommentMapper;
 import com.edu.webapp.mapper.PostMapper;
-import com.edu.webapp.model.dto.PostCommentDto;
-import com.edu.webapp.model.dto.PostLikeDto;
 import com.edu.webapp.model.enums.ActiveStatus;
 import com.edu.webapp.model.enums.NotiStatus;
+import com.edu.webapp.model.page.CursorPage;
+import com.edu.webapp.model.page.FacetPage;
 import com.edu.webapp.model.page.CustomPage;
 import com.edu.webapp.model.request.*;
+import com.edu.webapp.model.response.CacheStatsRes;
 import com.edu.webapp.model.response.CommentRes;
+import com.edu.webapp.model.response.FacetRes;
 import com.edu.webapp.model.response.PostRes;
+import com.edu.webapp.model.response.ReindexRes;
 import com.edu.webapp.repository.*;
 import com.edu.webapp.security.JwtCommon;
 import com.edu.webapp.service.PostService;
@@ -28,25 +36,41 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.*;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
-import java.sql.Timestamp;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class PostsServiceImpl implements PostService {
+    private static final int RECOMMEND_SIZE = 10;
+    private static final int TOP_SIZE = 10;
+    private static final int LIKE_ATTEMPTS = 3;
+    // Half the Earth's circumference, a wider radius already covers every point
+    private static final double MAX_GEO_DISTANCE_KM = 20_000;
+    // Elasticsearch time units accepted for the freshness decay; the scale must not be zero
+    private static final Pattern TIME_VALUE = Pattern.compile("\\d+(d|h|m|s|ms)");
+    private static final Pattern POSITIVE_TIME_VALUE = Pattern.compile("0*[1-9]\\d*(d|h|m|s|ms)");
+
     private final PostRepository postRepository;
     private final PostMapper postMapper;
     private final ImageRepository imageRepository;
@@ -58,9 +82,34 @@ public class PostsServiceImpl implements PostService {
     private final LikePostRepository likePostRepository;
     private final PostElsRepository postElsRepository;
     private final ElasticsearchService<PostEls> elasticsearchService;
-    private final LogSearchRepository logSearchRepository;
     private final NotiPostRepository notiPostRepository;
     private final JavaMailSender mailSender;
+    private final UserStatisticService userStatisticService;
+    private final SearchCacheService searchCacheService;
+    private final SearchHistoryService searchHistoryService;
+    private final LikedStateService likedStateService;
+    private final SuggestService suggestService;
+    private final RankingConfig rankingConfig;
+    private final PostOutboxService postOutboxService;
+    private final ServerTimingRecorder serverTimingRecorder;
+    private final ThreadPoolTaskExecutor taskExecutorSearch;
+    private final RecommendService recommendService;
+    private final RandomPostPool randomPostPool;
+    private final LeaderboardService leaderboardService;
+    private final ViewCounterService viewCounterService;
+    private final PostDetailCacheService postDetailCacheService;
+    private final MonthlyEngagementService monthlyEngagementService;
+    private final TransactionTemplate transactionTemplate;
+    private final ReindexService reindexService;
+
+    @Value("${app.search-facet.terms-size:100}")
+    private int facetTermsSize;
+
+    @Value("${app.search-facet.price-interval:1000000}")
+    private double facetPriceInterval;
+
+    @Value("${app.search-facet.acreage-interval:10}")
+    private double facetAcreageInterval;
 
     @Transactional
     @Override
@@ -74,6 +123,8 @@ public class PostsServiceImpl implements PostService {
         post.setCreatedBy(username);
         post.setUpdatedBy(username);
         postRepository.save(post);
+        postOutboxService.enqueue(post.getId());
+        userStatisticService.postCreated(username, post.getActive());
         for (String file : postCreateReq.getImages()) {
             Image image = new Image();
             image.setImage(file);
@@ -85,39 +136,165 @@ public class PostsServiceImpl implements PostService {
     }
 
     @Override
-    public Page<PostRes> search(FilterPostReq filterPostReq) throws IOException {
+    public FacetPage<PostRes> search(FilterPostReq filterPostReq) throws IOException {
+        resolveFieldSort(filterPostReq);
         Pageable pageable = PageRequest.of(filterPostReq.getPage(), filterPostReq.getSize());
-        Page<PostEls> posts = elasticsearchService.search("post", buildBoolQuery(filterPostReq), filterPostReq.getPage(), filterPostReq.getSize(), PostEls.class, getOrderSort(filterPostReq.getFieldSort()));
-        List<String> postId = posts.stream().map(PostEls::getId).toList();
-        List<Post> postList = postRepository.findByIdIn(postId);
-        postList.sort(Comparator.comparing(post -> postId.indexOf(post.getId())));
-        List<PostRes> postRes = postMapper.postsToPosts(postList);
-        HashMap<String, Integer> mapCount = new HashMap<>();
-        Set<String> emails;
-        emails = postRes.stream().map(PostRes::getCreatedBy).collect(Collectors.toSet());
-        Map<String, User> userMap = userRepository.findAllByEmailIn(emails).stream().collect(Collectors.toMap(User::getEmail, user -> user));
-        emails.forEach(email -> mapCount.put(email, postRepository.countByCreatedBy(email)));
         String username = jwtCommon.extractUsername();
-        Map<String, Boolean> mapLikePost;
-        mapLikePost = (username != null) ? likePostRepository.findLikePostByUserId(userRepository.findByEmail(username).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST)).getId()).stream().collect(Collectors.toMap(LikePost::getPostId, likePost -> true)) : new HashMap<>();
+        Map<String, Long> spans = serverTimingRecorder.currentSpans();
+        // Searches around the caller's own position almost never repeat, so they bypass the cache
+        boolean cacheable = filterPostReq.getGeo() == null;
+        SearchCacheService.SearchCacheEntry cached = cacheable ? serverTimingRecorder.time("cache", () -> searchCacheService.get(filterPostReq)) : null;
+        CompletableFuture<FacetPage<PostEls>> posts = null;
+        CompletableFuture<List<PostEls>> hits;
+        if (cached != null) {
+            hits = CompletableFuture.supplyAsync(() -> serverTimingRecorder.time(spans, "hydrate", () -> {
+                List<PostEls> postEls = new ArrayList<>();
+                postElsRepository.findAllById(cached.getIds()).forEach(postEls::add);
+                return postEls;
+            }), taskExecutorSearch);
+        } else {
+            boolean facets = Boolean.TRUE.equals(filterPostReq.getFacets());
+            Map<String, Query> selectable = buildSelectableFilters(filterPostReq);
+            Map<String, Aggregation> aggregations = facets ? buildFacetAggregations(selectable) : new HashMap<>();
+            Query query = buildQuery(filterPostReq, !facets);
+            Query postFilter = facets && !selectable.isEmpty() ? Query.of(q -> q.bool(b -> b.filter(new ArrayList<>(selectable.values())))) : null;
+            List<SortOptions> sortOptions = getOrderSort(filterPostReq);
+            posts = serverTimingRecorder.timeAsync("es", () -> elasticsearchService.searchAsync("post", query, postFilter, filterPostReq.getPage(), filterPostReq.getSize(), PostEls.class, sortOptions, aggregations));
+            hits = posts.thenApply(Page::getContent);
+        }
+        List<PostRes> postRes = enrich(hits, username, filterPostReq.getKey());
+        if (cached != null) return new FacetPage<>(postRes, pageable, cached.getTotal(), cached.getFacets());
+        FacetPage<PostEls> page = join(posts);
+        if (cacheable)
+            searchCacheService.put(filterPostReq, page.getContent().stream().map(PostEls::getId).toList(), page.getTotalElements(), page.getFacets());
+        return new FacetPage<>(postRes, pageable, page.getTotalElements(), page.getFacets());
+    }
+
+    /**
+     * The selectable filters are applied as post_filter, so the hits honour them but the aggregations do not.
+     * Each facet is then narrowed by every selected filter except its own, and still lists the alternatives to its current pick.
+     */
+    private Map<String, Aggregation> buildFacetAggregations(Map<String, Query> selectable) {
+        Map<String, Aggregation> aggregations = new LinkedHashMap<>();
+        aggregations.put("province", Aggregation.of(a -> a.terms(t -> t.field("province").size(facetTermsSize))));
+        aggregations.put("district", Aggregation.of(a -> a.terms(t -> t.field("district").size(facetTermsSize))));
+        aggregations.put("type", Aggregation.of(a -> a.terms(t -> t.field("type").size(facetTermsSize))));
+        aggregations.put("statusRoom", Aggregation.of(a -> a.terms(t -> t.field("statusRoom").size(facetTermsSize))));
+        aggregations.put("price", Aggregation.of(a -> a.histogram(h -> h.field("price").interval(facetPriceInterval).minDocCount(1))));
+        aggregations.put("acreage", Aggregation.of(a -> a.histogram(h -> h.field("acreage").interval(facetAcreageInterval).minDocCount(1))));
+        aggregations.replaceAll((name, aggregation) -> {
+            List<Query> others = selectable.entrySet().stream().filter(entry -> !entry.getKey().equals(name)).map(Map.Entry::getValue).toList();
+            if (others.isEmpty()) return aggregation;
+            return Aggregation.of(a -> a.filter(f -> f.bool(b -> b.filter(others))).aggregations(ElasticsearchService.FACET_VALUES, aggregation));
+        });
+        return aggregations;
+    }
+
+    @Override
+    public CacheStatsRes searchCacheStats() {
+        return searchCacheService.stats();
+    }
+
+    @Override
+    public ReindexRes reindex() throws IOException {
+        return reindexService.start();
+    }
+
+    @Override
+    public ReindexRes reindexStatus() {
+        return reindexService.status();
+    }
+
+    @Override
+    public List<String> suggest(String key, Integer size) {
+        return suggestService.suggest(key, size);
+    }
+
+    @Override
+    public CursorPage<PostRes> searchAfter(FilterPostReq filterPostReq) throws IOException {
+        resolveFieldSort(filterPostReq);
+        String username = jwtCommon.extractUsername();
+        CursorPage<PostEls> posts = serverTimingRecorder.timeIO("es", () -> elasticsearchService.searchAfter("post", buildQuery(filterPostReq), filterPostReq.getSize(), PostEls.class, getOrderSort(filterPostReq), filterPostReq.getCursor()));
+        List<PostRes> postRes = enrich(CompletableFuture.completedFuture(posts.getContent()), username, filterPostReq.getCursor() == null ? filterPostReq.getKey() : null);
+        return new CursorPage<>(postRes, posts.getPageable(), posts.getTotalElements(), posts.getCursor());
+    }
+
+    /**
+     * The lookups that only need the hits run side by side on taskExecutorSearch, and the caller's id is resolved while ES is still running.
+     * The fan-out starts after the hits are joined on the request thread: the async client completes its futures on its I/O thread,
+     * and CallerRunsPolicy must never run blocking JDBC there.
+     */
+    private List<PostRes> enrich(CompletableFuture<List<PostEls>> hits, String username, String key) throws IOException {
+        Map<String, Long> spans = serverTimingRecorder.currentSpans();
+        String principalId = likedStateService.principalUserId(username);
+        CompletableFuture<String> userId = username == null || principalId != null ? CompletableFuture.completedFuture(principalId)
+                : CompletableFuture.supplyAsync(() -> serverTimingRecorder.time(spans, "user", () -> likedStateService.resolveUserId(username)), taskExecutorSearch);
+        List<PostEls> postEls = join(hits);
+        CompletableFuture<Map<String, Integer>> counts = CompletableFuture.supplyAsync(() -> serverTimingRecorder.time(spans, "counts",
+                () -> userStatisticService.getTotalPosts(postEls.stream().map(PostEls::getCreatedBy).collect(Collectors.toSet()))), taskExecutorSearch);
+        CompletableFuture<Map<String, User>> authors = CompletableFuture.supplyAsync(() -> serverTimingRecorder.time(spans, "authors",
+                () -> findMissingAuthors(postEls)), taskExecutorSearch);
+        CompletableFuture<Map<String, OffsetDateTime>> uptimes = CompletableFuture.supplyAsync(() -> serverTimingRecorder.time(spans, "uptime",
+                () -> findUptimes(postEls)), taskExecutorSearch);
+        CompletableFuture<Map<String, Boolean>> liked = userId.thenApplyAsync(id -> id == null ? new HashMap<String, Boolean>()
+                : serverTimingRecorder.time(spans, "likes", () -> likedStateService.getLikedByUserId(id, postEls.stream().map(PostEls::getId).toList())), taskExecutorSearch);
+        List<PostRes> postRes = serverTimingRecorder.time("map", () -> postMapper.postsElsToPostsRes(postEls));
+        buildPostResFromEls(postRes, postEls, join(authors), join(counts), join(uptimes));
+        Map<String, Boolean> mapLikePost = join(liked);
         for (PostRes post : postRes) {
-            PostRes.UserPostRes userPostRes = new PostRes.UserPostRes();
-            User user = userMap.get(post.getCreatedBy());
-            userPostRes.setTotalPost(mapCount.getOrDefault(user.getEmail(), 0));
-            userPostRes.setId(Objects.requireNonNull(user).getId());
-            buildUserPostRes(userPostRes, user);
-            post.setUserPostRes(userPostRes);
-            post.setUptime(TimeUtils.formatTimeDifference(post.getUpdatedAt(), OffsetDateTime.now()));
-            post.setDateOfJoin(TimeUtils.formatTimeDifference(post.getCreatedAt(), OffsetDateTime.now()));
             post.setLike(mapLikePost.getOrDefault(post.getId(), false));
         }
-        if (username != null && !StringUtils.isEmpty(filterPostReq.getKey())) {
-            LogSearch logSearch = new LogSearch();
-            logSearch.setUserId(username);
-            logSearch.setKeySearch(filterPostReq.getKey());
-            logSearchRepository.save(logSearch);
+        if (username != null && !StringUtils.isEmpty(key)) {
+            serverTimingRecorder.time("history", () -> {
+                searchHistoryService.record(username, key);
+                return null;
+            });
+        }
+        return postRes;
+    }
+
+    private <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw e;
+        }
+    }
+
+    // Documents indexed before the author card existed fall back to MySQL until they are reindexed
+    private Map<String, User> findMissingAuthors(List<PostEls> postEls) {
+        Set<String> missingAuthors = postEls.stream().filter(els -> els.getUserPostEls() == null).map(PostEls::getCreatedBy).collect(Collectors.toSet());
+        if (missingAuthors.isEmpty()) return new HashMap<>();
+        return userRepository.findAllByEmailIn(missingAuthors).stream().collect(Collectors.toMap(User::getEmail, user -> user));
+    }
+
+    // Authors that have never been seen have no uptime, so the map is built without toMap's null check
+    private Map<String, OffsetDateTime> findUptimes(List<PostEls> postEls) {
+        Set<String> emails = postEls.stream().filter(els -> els.getUserPostEls() != null).map(PostEls::getCreatedBy).collect(Collectors.toSet());
+        Map<String, OffsetDateTime> uptimes = new HashMap<>();
+        if (emails.isEmpty()) return uptimes;
+        userRepository.findUptimeByEmailIn(emails).forEach(dto -> uptimes.put(dto.getEmail(), dto.getUptime()));
+        return uptimes;
+    }
+
+    private void buildPostResFromEls(List<PostRes> postRes, List<PostEls> postEls, Map<String, User> userMap, Map<String, Integer> mapCount, Map<String, OffsetDateTime> uptimes) {
+        OffsetDateTime now = OffsetDateTime.now();
+        for (int i = 0; i < postRes.size(); i++) {
+            PostRes post = postRes.get(i);
+            PostEls.UserPostEls author = postEls.get(i).getUserPostEls();
+            if (author != null) {
+                post.getUserPostRes().setUptime(TimeUtils.formatTimeDifference(uptimes.get(post.getCreatedBy()), now));
+                post.getUserPostRes().setDateOfJoin(TimeUtils.formatTimeDifference(postMapper.toOffsetDateTime(author.getCreatedAt()), now));
+            } else if (userMap.containsKey(post.getCreatedBy())) {
+                post.setUserPostRes(buildUserPostRes(userMap.get(post.getCreatedBy())));
+            }
+            if (post.getUserPostRes() != null)
+                post.getUserPostRes().setTotalPost(mapCount.getOrDefault(post.getCreatedBy(), 0));
+            post.setUptime(TimeUtils.formatTimeDifference(post.getUpdatedAt(), now));
+            post.setDateOfJoin(TimeUtils.formatTimeDifference(post.getCreatedAt(), now));
         }
-        return new PageImpl<>(postRes, pageable, posts.getTotalElements());
     }
 
     private void buildUserPostRes(PostRes.UserPostRes userPostRes, User user) {
@@ -131,9 +308,14 @@ public class PostsServiceImpl implements PostService {
 
     @Override
     public PostRes getPostById(String id) {
+        PostRes postRes = postDetailCacheService.get(id, this::loadPostDetail);
+        viewCounterService.increment(id);
+        postRes.setView(postRes.getView() + viewCounterService.pending(id));
+        return postRes;
+    }
+
+    private PostRes loadPostDetail(String id) {
         Post post = postRepository.findById(id).orElseThrow(() -> new ValidateException(ErrorCodes.POST_NOT_EXIST));
-        post.setView(post.getView() + 1);
-        postRepository.save(post);
         User user = userRepository.findByEmail(post.getCreatedBy()).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST));
         PostRes.UserPostRes userPostRes = buildUserPostRes(user);
         PostRes postRes = postMapper.postToPostRes(post);
@@ -144,6 +326,7 @@ public class PostsServiceImpl implements PostService {
     }
 
     @Override
+    @Transactional
     public CommentRes createComment(CommentReq commentReq) {
         String email = jwtCommon.extractUsername();
         User user = userRepository.findByEmail(email).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST));
@@ -151,11 +334,14 @@ public class PostsServiceImpl implements PostService {
         comment.setUserId(user.getId());
         commentRepository.save(comment);
         CommentRes commentRes = commentMapper.commentToCommentRes(comment);
-        if (!postRepository.existsById(commentReq.getPostId())) throw new ValidateException(ErrorCodes.POST_NOT_EXIST);
+        if (postRepository.addCommentCount(commentReq.getPostId(), 1) == 0) throw new ValidateException(ErrorCodes.POST_NOT_EXIST);
+        postOutboxService.enqueue(commentReq.getPostId());
         commentRes.setAvatar(user.getAvatar());
         commentRes.setFullName(user.getFullName());
         commentRes.setUserId(user.getId());
         commentRes.setEmail(email);
+        leaderboardService.commentAdded(comment.getPostId());
+        monthlyEngagementService.commentAdded();
         simpMessagingTemplate.convertAndSend("/topic/comments/" + comment.getPostId(), commentRes);
         return commentRes;
     }
@@ -164,20 +350,14 @@ public class PostsServiceImpl implements PostService {
     public Page<PostRes> searchPostUser(Integer page, Integer size, String key, ActiveStatus status) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("updatedAt").descending());
         String username = jwtCommon.extractUsername();
-        Page<Post> postList;
-        if (status == null) {
-            postList = postRepository.findByCreatedByAndContentContaining(username, key, pageable);
-        } else {
-            postList = postRepository.findByCreatedByAndContentContainingAndActive(username, key, status, pageable);
-        }
-        List<PostRes> postRes = postMapper.postsToPosts(postList.getContent());
-        HashMap<String, Integer> mapCount = new HashMap<>();
-        Set<String> emails;
-        emails = postRes.stream().map(PostRes::getCreatedBy).collect(Collectors.toSet());
-        Map<String, User> userMap = userRepository.findAllByEmailIn(emails).stream().collect(Collectors.toMap(User::getEmail, user -> user));
-        emails.forEach(email -> mapCount.put(email, postRepository.countByCreatedBy(email)));
-        Map<String, Boolean> mapLikePost;
-        mapLikePost = (username != null) ? likePostRepository.findLikePostByUserId(userRepository.findByEmail(username).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST)).getId()).stream().collect(Collectors.toMap(LikePost::getPostId, likePost -> true)) : new HashMap<>();
+        Page<Post> postList = serverTimingRecorder.time("posts", () -> status == null
+                ? postRepository.findByCreatedByAndContentContaining(username, key, pageable)
+                : postRepository.findByCreatedByAndContentContainingAndActive(username, key, status, pageable));
+        List<PostRes> postRes = serverTimingRecorder.time("map", () -> postMapper.postsToPosts(postList.getContent()));
+        Set<String> emails = postRes.stream().map(PostRes::getCreatedBy).collect(Collectors.toSet());
+        Map<String, User> userMap = serverTimingRecorder.time("authors", () -> userRepository.findAllByEmailIn(emails)).stream().collect(Collectors.toMap(User::getEmail, user -> user));
+        Map<String, Integer> mapCount = serverTimingRecorder.time("counts", () -> userStatisticService.getTotalPosts(emails));
+        Map<String, Boolean> mapLikePost = serverTimingRecorder.time("likes", () -> likedStateService.getLiked(username, postRes.stream().map(PostRes::getId).toList()));
         for (PostRes post : postRes) {
             PostRes.UserPostRes userPostRes = new PostRes.UserPostRes();
             User user = userMap.get(post.getCreatedBy());
@@ -195,18 +375,13 @@ public class PostsServiceImpl implements PostService {
     @Override
     public Page<PostRes> searchPostAdmin(Integer page, Integer size, String key, ActiveStatus status) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("updatedAt").descending());
-        Page<Post> postList;
-        if (status == null) {
-            postList = postRepository.findByContentContaining(key, pageable);
-        } else {
-            postList = postRepository.findByContentContainingAndActive(key, status, pageable);
-        }
-        List<PostRes> postRes = postMapper.postsToPosts(postList.getContent());
-        HashMap<String, Integer> mapCount = new HashMap<>();
-        Set<String> emails;
-        emails = postRes.stream().map(PostRes::getCreatedBy).collect(Collectors.toSet());
-        Map<String, User> userMap = userRepository.findAllByEmailIn(emails).stream().collect(Collectors.toMap(User::getEmail, user -> user));
-        emails.forEach(email -> mapCount.put(email, postRepository.countByCreatedBy(email)));
+        Page<Post> postList = serverTimingRecorder.time("posts", () -> status == null
+                ? postRepository.findByContentContaining(key, pageable)
+                : postRepository.findByContentContainingAndActive(key, status, pageable));
+        List<PostRes> postRes = serverTimingRecorder.time("map", () -> postMapper.postsToPosts(postList.getContent()));
+        Set<String> emails = postRes.stream().map(PostRes::getCreatedBy).collect(Collectors.toSet());
+        Map<String, User> userMap = serverTimingRecorder.time("authors", () -> userRepository.findAllByEmailIn(emails)).stream().collect(Collectors.toMap(User::getEmail, user -> user));
+        Map<String, Integer> mapCount = serverTimingRecorder.time("counts", () -> userStatisticService.getTotalPosts(emails));
         for (PostRes post : postRes) {
             PostRes.UserPostRes userPostRes = new PostRes.UserPostRes();
             User user = userMap.get(post.getCreatedBy());
@@ -245,6 +420,7 @@ public class PostsServiceImpl implements PostService {
     }
 
     @Override
+    @Transactional
     public PostRes updatePost(PostUpdateReq postUpdateReq) {
         String email = jwtCommon.extractUsername();
         User user = userRepository.findByEmail(email).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST));
@@ -253,6 +429,9 @@ public class PostsServiceImpl implements PostService {
         Post post = postRepository.findById(postUpdateReq.getPostId()).orElseThrow(() -> new ValidateException(ErrorCodes.POST_NOT_EXIST));
         if (!post.getCreatedBy().equals(user.getEmail()))
             throw new ValidateException(ErrorCodes.YOU_NOT_PERMISSION_UPDATE);
+        searchCacheService.evict(post.getProvince(), post.getDistrict());
+        String oldProvince = post.getProvince();
+        String oldDistrict = post.getDistrict();
         post.setTitle(postUpdateReq.getTitle());
         post.setContent(postUpdateReq.getContent());
         post.setPrice(postUpdateReq.getPrice());
@@ -266,23 +445,19 @@ public class PostsServiceImpl implements PostService {
         post.setDistrict(postUpdateReq.getDistrict());
         post.setLongitude(postUpdateReq.getLongitude());
         post.setLatitude(postUpdateReq.getLatitude());
+        ActiveStatus oldActive = post.getActive();
         post.setActive(postUpdateReq.getActive());
         post.setType(postUpdateReq.getType());
         post.setUpdatedBy(email);
         post.setUpdatedAt(OffsetDateTime.now());
         postRepository.save(post);
-        if (post.getActive().equals(ActiveStatus.ACTIVE)) {
-            try {
-                postElsRepository.deleteById(post.getId());
-            } catch (Exception ignored) {
-            }
-        }
-        PostEls postEls = postMapper.postToPostEls(post);
-        postEls.setVip(0);
-        if (user.getRechargeVip() != null && !LocalDate.now().isAfter(user.getRechargeVip())) {
-            postEls.setVip(1);
-        }
-        postElsRepository.save(postEls);
+        userStatisticService.postStatusChanged(post.getCreatedBy(), oldActive, post.getActive());
+        // The relay indexes the post only while it is ACTIVE and deletes it otherwise, the same as updatePostStatus
+        if (Objects.equals(oldProvince, post.getProvince()) && Objects.equals(oldDistrict, post.getDistrict()))
+            postOutboxService.enqueue(post.getId());
+        else postOutboxService.enqueueMoved(post.getId(), oldProvince, oldDistrict);
+        searchCacheService.evict(post.getProvince(), post.getDistrict());
+        postDetailCacheService.invalidate(post.getId());
         PostRes postRes = postMapper.postToPostRes(post);
         PostRes.UserPostRes userPostRes = buildUserPostRes(user);
         postRes.setUserPostRes(userPostRes);
@@ -291,18 +466,36 @@ public class PostsServiceImpl implements PostService {
         return postRes;
     }
 
+    // Two first taps on the same post can deadlock on the unique key's gap locks; the rolled back one simply runs again
     @Override
     public void likePost(String id) {
         String email = jwtCommon.extractUsername();
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST));
-        Post post = postRepository.findById(id).orElseThrow(() -> new ValidateException(ErrorCodes.POST_NOT_EXIST));
-        LikePost likePost = likePostRepository.findLikePostByPostIdAndUserId(post.getId(), user.getId());
-        if (likePost == null) {
-            likePost = new LikePost();
-            likePost.setUserId(user.getId());
-            likePost.setPostId(post.getId());
-            likePostRepository.save(likePost);
-        } else likePostRepository.delete(likePost);
+        String userId = likedStateService.resolveUserId(email);
+        Boolean liked;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                liked = transactionTemplate.execute(status -> toggleLike(id, userId));
+                break;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == LIKE_ATTEMPTS) throw e;
+                log.warn("Like post {} lost a lock, attempt {}: {}", id, attempt, e.getMessage());
+            }
+        }
+        if (liked == null) return;
+        postDetailCacheService.invalidate(id);
+        likedStateService.likeChanged(userId, id, liked);
+        leaderboardService.likeChanged(id, liked);
+    }
+
+    // Returns whether the post ended up liked, null when a concurrent tap already liked it
+    private Boolean toggleLike(String id, String userId) {
+        boolean liked = likePostRepository.deleteLike(id, userId) == 0;
+        if (liked && likePostRepository.insertLike(UUID.randomUUID().toString(), id, userId) == 0) return null;
+        if (postRepository.addLikeCount(id, liked ? 1 : -1) == 0) throw new ValidateException(ErrorCodes.POST_NOT_EXIST);
+        postOutboxService.enqueue(id);
+        if (liked) monthlyEngagementService.likeAdded();
+        else monthlyEngagementService.likeRemoved();
+        return liked;
     }
 
     @Override
@@ -310,15 +503,14 @@ public class PostsServiceImpl implements PostService {
         String username = jwtCommon.extractUsername();
         User user = userRepository.findByEmail(username).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST));
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<LikePost> likePosts = likePostRepository.findLikePostByUserId(user.getId(), pageable);
+        Page<LikePost> likePosts = serverTimingRecorder.time("like-page", () -> likePostRepository.findLikePostByUserId(user.getId(), pageable));
         List<String> listPostIds = likePosts.stream().map(LikePost::getPostId).toList();
-        List<Post> posts = postRepository.findByIdIn(listPostIds);
-        List<PostRes> postRes = postMapper.postsToPosts(posts);
-        Map<String, Integer> mapCount = new HashMap<>();
+        List<Post> posts = serverTimingRecorder.time("hydrate", () -> postRepository.findByIdIn(listPostIds));
+        List<PostRes> postRes = serverTimingRecorder.time("map", () -> postMapper.postsToPosts(posts));
         Set<String> emails = postRes.stream().map(PostRes::getCreatedBy).collect(Collectors.toSet());
-        Map<String, User> userMap = userRepository.findAllByEmailIn(emails).stream().collect(Collectors.toMap(User::getEmail, u -> u));
-        emails.forEach(email -> mapCount.put(email, postRepository.countByCreatedBy(email)));
-        Map<String, Boolean> mapLikePost = (username != null) ? likePostRepository.findLikePostByUserId(userRepository.findByEmail(username).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST)).getId()).stream().collect(Collectors.toMap(LikePost::getPostId, likePost -> true)) : new HashMap<>();
+        Map<String, User> userMap = serverTimingRecorder.time("authors", () -> userRepository.findAllByEmailIn(emails)).stream().collect(Collectors.toMap(User::getEmail, u -> u));
+        Map<String, Integer> mapCount = serverTimingRecorder.time("counts", () -> userStatisticService.getTotalPosts(emails));
+        Map<String, Boolean> mapLikePost = serverTimingRecorder.time("likes", () -> likedStateService.getLiked(username, postRes.stream().map(PostRes::getId).toList()));
         for (PostRes post : postRes) {
             AtomicReference<PostRes.UserPostRes> userPostRes = new AtomicReference<>(new PostRes.UserPostRes());
             User u = userMap.get(post.getCreatedBy());
@@ -344,61 +536,40 @@ public class PostsServiceImpl implements PostService {
     @Override
     public Page<PostRes> recommend() throws IOException {
         String username = jwtCommon.extractUsername();
-        List<Post> list;
-        if (username == null) {
-            list = postRepository.findRandomRecommend();
-        } else {
-            List<String> keySearch = logSearchRepository.findByUserId(username);
-            if (keySearch == null) {
-                Page<PostEls> posts = elasticsearchService.search("post", buildBoolQueryRecommend(keySearch), 0, 10, PostEls.class, new HashMap<>());
-                List<String> postId = posts.stream().map(PostEls::getId).toList();
-                list = postRepository.findByIdIn(postId);
-            } else list = new ArrayList<>();
-            List<Post> randomRecommend = postRepository.findRandomRecommend();
-            if (list.size() < 10) {
-                int min = Math.min(randomRecommend.size(), 10 - randomRecommend.size());
-                List<Post> recommend = randomRecommend.subList(0, min);
-                list.addAll(recommend);
-            }
+        List<PostEls> postEls = new ArrayList<>();
+        if (username != null) {
+            String userId = likedStateService.resolveUserId(username);
+            List<String> postIds = recommendService.recommend(userId, username, RECOMMEND_SIZE);
+            // Only active posts are indexed, so posts hidden since the similarity snapshot drop out here
+            Map<String, PostEls> postMap = new HashMap<>();
+            postElsRepository.findAllById(postIds).forEach(els -> postMap.put(els.getId(), els));
+            postIds.stream().map(postMap::get).filter(Objects::nonNull).forEach(postEls::add);
         }
-        List<PostRes> postRes = postMapper.postsToPosts(list);
-        HashMap<String, Integer> mapCount = new HashMap<>();
-        Set<String> emails;
-        emails = postRes.stream().map(PostRes::getCreatedBy).collect(Collectors.toSet());
-        Map<String, User> userMap = userRepository.findAllByEmailIn(emails).stream().collect(Collectors.toMap(User::getEmail, user -> user));
-        emails.forEach(email -> mapCount.put(email, postRepository.countByCreatedBy(email)));
-        Map<String, Boolean> mapLikePost;
-        mapLikePost = (username != null) ? likePostRepository.findLikePostByUserId(userRepository.findByEmail(username).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST)).getId()).stream().collect(Collectors.toMap(LikePost::getPostId, likePost -> true)) : new HashMap<>();
-        for (PostRes post : postRes) {
-            PostRes.UserPostRes userPostRes = new PostRes.UserPostRes();
-            User user = userMap.get(post.getCreatedBy());
-            userPostRes.setTotalPost(mapCount.getOrDefault(user.getEmail(), 0));
-            userPostRes.setId(Objects.requireNonNull(user).getId());
-            buildUserPostRes(userPostRes, user);
-            post.setUserPostRes(userPostRes);
-            post.setUptime(TimeUtils.formatTimeDifference(post.getUpdatedAt(), OffsetDateTime.now()));
-            post.setDateOfJoin(TimeUtils.formatTimeDifference(post.getCreatedAt(), OffsetDateTime.now()));
-            post.setLike(mapLikePost.getOrDefault(post.getId(), false));
+        if (postEls.size() < RECOMMEND_SIZE) {
+            List<String> randomIds = randomPostPool.draw(RECOMMEND_SIZE - postEls.size(), postEls.stream().map(PostEls::getId).collect(Collectors.toSet()));
+            if (!randomIds.isEmpty()) postElsRepository.findAllById(randomIds).forEach(postEls::add);
         }
-        return new PageImpl<>(postRes, PageRequest.of(0, postRes.size()), postRes.size());
+        List<PostRes> postRes = enrich(CompletableFuture.completedFuture(postEls), username, null);
+        return new PageImpl<>(postRes, PageRequest.of(0, Math.max(1, postRes.size())), postRes.size());
     }
 
     @Override
+    @Transactional
     public PostRes updatePostStatus(PostUpdateStatusReq postUpdateStatusReq) {
         Post post = postRepository.findById(postUpdateStatusReq.getPostId()).orElseThrow(() -> new ValidateException(ErrorCodes.POST_NOT_EXIST));
+        ActiveStatus oldActive = post.getActive();
         post.setActive(postUpdateStatusReq.getActive());
         postRepository.save(post);
+        userStatisticService.postStatusChanged(post.getCreatedBy(), oldActive, post.getActive());
+        User user = userRepository.findByEmail(post.getCreatedBy()).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST));
         if (postUpdateStatusReq.getActive().equals(ActiveStatus.ACTIVE)) {
-            PostEls postEls = postMapper.postToPostEls(post);
-            OffsetDateTime offsetDateTime = OffsetDateTime.now();
-            postEls.setCreatedAt(Timestamp.from(offsetDateTime.toInstant()));
-            postEls.setUpdatedAt(Timestamp.from(offsetDateTime.toInstant()));
-            postElsRepository.save(postEls);
+            postOutboxService.enqueue(post.getId(), OffsetDateTime.now());
             notiPost(post);
         } else {
-            postElsRepository.deleteById(post.getId());
+            postOutboxService.enqueue(post.getId());
         }
-        User user = userRepository.findByEmail(post.getCreatedBy()).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST));
+        searchCacheService.evict(post.getProvince(), post.getDistrict());
+        postDetailCacheService.invalidate(post.getId());
         PostRes.UserPostRes userPostRes = buildUserPostRes(user);
         PostRes postRes = postMapper.postToPostRes(post);
         postRes.setUserPostRes(userPostRes);
@@ -408,32 +579,35 @@ public class PostsServiceImpl implements PostService {
     }
 
     @Override
-    public List<PostRes> top10Comment() {
-        List<PostCommentDto> postCommentDtos = commentRepository.findTop10Comments();
-        List<PostRes> postResList = new ArrayList<>();
-        for (PostCommentDto postCommentDto : postCommentDtos) {
-            PostRes postRes = getPostById(postCommentDto.getPostId());
-            postRes.setTotalComment(postCommentDto.getTotalComment());
-            postResList.add(postRes);
-        }
-        return postResList;
+    public List<PostRes> top10Comment() throws IOException {
+        List<LeaderboardService.Entry> entries = leaderboardService.topCommented();
+        List<PostRes> postRes = hydrateLeaderboard(entries);
+        Map<String, Long> counts = entries.stream().collect(Collectors.toMap(LeaderboardService.Entry::getPostId, LeaderboardService.Entry::getCount));
+        postRes.forEach(post -> post.setTotalComment(counts.get(post.getId())));
+        return postRes;
     }
 
     @Override
-    public List<PostRes> top10Like() {
-        List<PostLikeDto> postLikeDtos = likePostRepository.findTop10Like();
-        List<PostRes> postResList = new ArrayList<>();
-        for (PostLikeDto postLikeDto : postLikeDtos) {
-            PostRes postRes = getPostById(postLikeDto.getPostId());
-            postRes.setTotalComment(postLikeDto.getTotalLike());
-            postResList.add(postRes);
-        }
-        return postResList;
+    public List<PostRes> top10Like() throws IOException {
+        List<LeaderboardService.Entry> entries = leaderboardService.topLiked();
+        List<PostRes> postRes = hydrateLeaderboard(entries);
+        Map<String, Long> counts = entries.stream().collect(Collectors.toMap(LeaderboardService.Entry::getPostId, LeaderboardService.Entry::getCount));
+        postRes.forEach(post -> post.setTotalLike(counts.get(post.getId())));
+        return postRes;
+    }
+
+    // Only active posts are indexed, so hidden posts drop out here and the next candidates take their place
+    private List<PostRes> hydrateLeaderboard(List<LeaderboardService.Entry> entries) throws IOException {
+        List<String> postIds = entries.stream().map(LeaderboardService.Entry::getPostId).toList();
+        Map<String, PostEls> postMap = new HashMap<>();
+        serverTimingRecorder.timeIO("es", () -> postElsRepository.findAllById(postIds)).forEach(els -> postMap.put(els.getId(), els));
+        List<PostEls> postEls = postIds.stream().map(postMap::get).filter(Objects::nonNull).limit(TOP_SIZE).toList();
+        return enrich(CompletableFuture.completedFuture(postEls), jwtCommon.extractUsername(), null);
     }
 
     private PostRes.UserPostRes buildUserPostRes(User user) {
         PostRes.UserPostRes userPostRes = new PostRes.UserPostRes();
-        userPostRes.setTotalPost(postRepository.countByCreatedBy(user.getEmail()));
+        userPostRes.setTotalPost(userStatisticService.getTotalPost(user.getEmail()));
         userPostRes.setId(user.getId());
         buildUserPostRes(userPostRes, user);
         return userPostRes;
@@ -441,78 +615,171 @@ public class PostsServiceImpl implements PostService {
 
 
     public BoolQuery buildBoolQuery(FilterPostReq filterPostReq) {
+        return buildBoolQuery(filterPostReq, true);
+    }
+
+    // Without the selectable filters the query only narrows by keyword and area; they then go to post_filter
+    private BoolQuery buildBoolQuery(FilterPostReq filterPostReq, boolean withSelectable) {
         return BoolQuery.of(b -> {
             List<Query> mustQueries = new ArrayList<>();
 
-            // Range for price
-            if (filterPostReq.getPrice() != null) {
-                mustQueries.add(Query.of(m -> m.range(r -> r.field("price")
-                        .gte(JsonData.of(filterPostReq.getPrice().getFrom()))
-                        .lte(JsonData.of(
-                                filterPostReq.getPrice().getTo() != null
-                                        ? filterPostReq.getPrice().getTo()
-                                        : filterPostReq.getPrice().getFrom() + 100000000)) // Default upper bound
-                )));
+            // Keyword runs against the folded n-gram subfields, so no leading wildcard scan
+            if (!StringUtils.isBlank(filterPostReq.getKey())) {
+                mustQueries.add(buildKeywordQuery(filterPostReq.getKey()));
             }
 
-            // Range for acreage
-            if (filterPostReq.getAcreage() != null) {
-                mustQueries.add(Query.of(m -> m.range(r -> r.field("acreage")
-                        .gte(JsonData.of(filterPostReq.getAcreage().getFrom()))
-                        .lte(JsonData.of(
-                                filterPostReq.getAcreage().getTo() != null
-                                        ? filterPostReq.getAcreage().getTo()
-                                        : filterPostReq.getAcreage().getFrom() + 500)) // Default upper bound
-                )));
+            List<Query> filterQueries = new ArrayList<>();
+            if (withSelectable) filterQueries.addAll(buildSelectableFilters(filterPostReq).values());
+
+            FilterGeoReq geo = filterPostReq.getGeo();
+            if (geo != null && geo.hasCenter() && geo.getDistance() != null) {
+                validateGeoDistance(geo);
+                // Plain notation, a large double would otherwise print as 1.0E7 which ES cannot parse as a distance
+                String distance = BigDecimal.valueOf(geo.getDistance()).stripTrailingZeros().toPlainString() + "km";
+                filterQueries.add(Query.of(f -> f.geoDistance(g -> g
+                        .field("location")
+                        .distance(distance)
+                        .location(l -> l.latlon(ll -> ll.lat(geo.getLat()).lon(geo.getLon()))))));
             }
 
-            List<Query> shouldQueries = new ArrayList<>();
-            String keyQuery = StringUtils.isEmpty(filterPostReq.getKey()) ? "*" : filterPostReq.getKey();
-
-            // Improved wildcard query, adding "*" around the keyQuery only if needed
-            if (!keyQuery.equals("*")) {
-                shouldQueries.add(Query.of(m -> m.wildcard(w -> w.field("content").value("*" + keyQuery + "*"))));
-                shouldQueries.add(Query.of(m -> m.wildcard(w -> w.field("title").value("*" + keyQuery + "*"))));
+            if (geo != null && geo.hasBoundingBox()) {
+                filterQueries.add(Query.of(f -> f.geoBoundingBox(g -> g
+                        .field("location")
+                        .boundingBox(bb -> bb.coords(c -> c
+                                .top(geo.getTop())
+                                .left(geo.getLeft())
+                                .bottom(geo.getBottom())
+                                .right(geo.getRight()))))));
             }
 
-            List<Query> filterQueries = new ArrayList<>();
+            return b.must(mustQueries)
+                    .filter(filterQueries);
+        });
+    }
 
-            // Match queries with exact values (using term for exact matching)
-            if (filterPostReq.getType() != null && !filterPostReq.getType().equals("all")) {
-                filterQueries.add(Query.of(f -> f.term(t -> t.field("type").value(filterPostReq.getType()))));
-            }
+    // The filters a user picks from the facets, keyed by the facet they belong to
+    private Map<String, Query> buildSelectableFilters(FilterPostReq filterPostReq) {
+        Map<String, Query> filters = new LinkedHashMap<>();
+
+        // Range for price
+        if (filterPostReq.getPrice() != null) {
+            filters.put("price", Query.of(m -> m.range(r -> r.field("price")
+                    .gte(JsonData.of(filterPostReq.getPrice().getFrom()))
+                    .lte(JsonData.of(
+                            filterPostReq.getPrice().getTo() != null
+                                    ? filterPostReq.getPrice().getTo()
+                                    : filterPostReq.getPrice().getFrom() + 100000000)) // Default upper bound
+            )));
+        }
 
-            if (filterPostReq.getProvince() != null) {
-                // Use 'term' for exact match on 'province'
-                filterQueries.add(Query.of(f -> f.term(t -> t.field("province").value(filterPostReq.getProvince()))));
-            }
+        // Range for acreage
+        if (filterPostReq.getAcreage() != null) {
+            filters.put("acreage", Query.of(m -> m.range(r -> r.field("acreage")
+                    .gte(JsonData.of(filterPostReq.getAcreage().getFrom()))
+                    .lte(JsonData.of(
+                            filterPostReq.getAcreage().getTo() != null
+                                    ? filterPostReq.getAcreage().getTo()
+                                    : filterPostReq.getAcreage().getFrom() + 500)) // Default upper bound
+            )));
+        }
 
-            if (filterPostReq.getDistrict() != null) {
-                // Use 'term' for exact match on 'district'
-                filterQueries.add(Query.of(f -> f.term(t -> t.field("district").value(filterPostReq.getDistrict()))));
-            }
+        // Match queries with exact values (using term for exact matching)
+        if (filterPostReq.getType() != null && !filterPostReq.getType().equals("all")) {
+            filters.put("type", Query.of(f -> f.term(t -> t.field("type").value(filterPostReq.getType()))));
+        }
 
-            if (filterPostReq.getStatusRoom() != null) {
-                // Use 'term' for exact match on 'statusRoom'
-                filterQueries.add(Query.of(f -> f.term(t -> t.field("statusRoom").value(filterPostReq.getStatusRoom()))));
-            }
+        if (filterPostReq.getProvince() != null) {
+            // Use 'term' for exact match on 'province'
+            filters.put("province", Query.of(f -> f.term(t -> t.field("province").value(filterPostReq.getProvince()))));
+        }
 
-            return b.must(mustQueries)
-                    .should(shouldQueries)
-                    .filter(filterQueries);
-        });
+        if (filterPostReq.getDistrict() != null) {
+            // Use 'term' for exact match on 'district'
+            filters.put("district", Query.of(f -> f.term(t -> t.field("district").value(filterPostReq.getDistrict()))));
+        }
+
+        if (filterPostReq.getStatusRoom() != null) {
+            // Use 'term' for exact match on 'statusRoom'
+            filters.put("statusRoom", Query.of(f -> f.term(t -> t.field("statusRoom").value(filterPostReq.getStatusRoom()))));
+        }
+        return filters;
+    }
+
+    private Query buildKeywordQuery(String key) {
+        return Query.of(q -> q.multiMatch(m -> m
+                .query(key.trim())
+                .fields("title^3", "title.edge^2", "title.ngram", "content", "content.edge")
+                .operator(Operator.And)));
+    }
+
+
+    @Override
+    public RankingConfig getRanking() {
+        return rankingConfig;
+    }
+
+    @Override
+    public synchronized RankingConfig updateRanking(RankingReq rankingReq) {
+        validateRanking(rankingReq);
+        if (rankingReq.getEnabled() != null) rankingConfig.setEnabled(rankingReq.getEnabled());
+        if (rankingReq.getVipWeight() != null) rankingConfig.setVipWeight(rankingReq.getVipWeight());
+        if (rankingReq.getFreshnessWeight() != null) rankingConfig.setFreshnessWeight(rankingReq.getFreshnessWeight());
+        if (rankingReq.getFreshnessScale() != null) rankingConfig.setFreshnessScale(rankingReq.getFreshnessScale());
+        if (rankingReq.getFreshnessOffset() != null) rankingConfig.setFreshnessOffset(rankingReq.getFreshnessOffset());
+        if (rankingReq.getFreshnessDecay() != null) rankingConfig.setFreshnessDecay(rankingReq.getFreshnessDecay());
+        searchCacheService.evictAll();
+        return rankingConfig;
     }
 
+    // Every field is checked before any is applied; one bad value would make every recommended search fail in ES
+    private void validateRanking(RankingReq rankingReq) {
+        if (rankingReq.getVipWeight() != null && !(rankingReq.getVipWeight() >= 0))
+            throw new ValidateException(ErrorCodes.RANKING_INVALID);
+        if (rankingReq.getFreshnessWeight() != null && !(rankingReq.getFreshnessWeight() >= 0))
+            throw new ValidateException(ErrorCodes.RANKING_INVALID);
+        if (rankingReq.getFreshnessDecay() != null && !(rankingReq.getFreshnessDecay() > 0 && rankingReq.getFreshnessDecay() < 1))
+            throw new ValidateException(ErrorCodes.RANKING_INVALID);
+        if (rankingReq.getFreshnessScale() != null && !POSITIVE_TIME_VALUE.matcher(rankingReq.getFreshnessScale()).matches())
+            throw new ValidateException(ErrorCodes.RANKING_INVALID);
+        if (rankingReq.getFreshnessOffset() != null && !TIME_VALUE.matcher(rankingReq.getFreshnessOffset()).matches())
+            throw new ValidateException(ErrorCodes.RANKING_INVALID);
+    }
+
+    private void validateGeoDistance(FilterGeoReq geo) {
+        if (!(geo.getDistance() > 0 && geo.getDistance() <= MAX_GEO_DISTANCE_KM))
+            throw new ValidateException(ErrorCodes.GEO_DISTANCE_INVALID);
+        if (!(Math.abs(geo.getLat()) <= 90 && Math.abs(geo.getLon()) <= 180))
+            throw new ValidateException(ErrorCodes.GEO_DISTANCE_INVALID);
+    }
+
+    private void resolveFieldSort(FilterPostReq filterPostReq) {
+        if (StringUtils.isBlank(filterPostReq.getFieldSort()))
+            filterPostReq.setFieldSort(rankingConfig.isEnabled() ? "recommended" : "newest");
+    }
+
+    private Query buildQuery(FilterPostReq filterPostReq) {
+        return buildQuery(filterPostReq, true);
+    }
+
+    private Query buildQuery(FilterPostReq filterPostReq, boolean withSelectable) {
+        BoolQuery boolQuery = buildBoolQuery(filterPostReq, withSelectable);
+        if (!"recommended".equals(filterPostReq.getFieldSort())) return Query.of(q -> q.bool(boolQuery));
+        return elasticsearchService.functionScore(boolQuery, rankingConfig);
+    }
 
-    private Map<String, SortOrder> getOrderSort(String value) {
-        Map<String, SortOrder> map = new HashMap<>();
+    private List<SortOptions> getOrderSort(FilterPostReq filterPostReq) {
+        String value = filterPostReq.getFieldSort();
+        FilterGeoReq geo = filterPostReq.getGeo();
+        Map<String, SortOrder> map = new LinkedHashMap<>();
 //        map.put("vip", SortOrder.Desc);
         if (value == null) {
-            map.put("updatedAt", SortOrder.Desc);
-            map.put("createdAt", SortOrder.Desc);
-            return map;
+            value = "newest";
         }
         switch (value) {
+            case "recommended":
+                return new ArrayList<>(List.of(
+                        SortOptions.of(so -> so.score(sc -> sc.order(SortOrder.Desc))),
+                        SortOptions.of(so -> so.field(f -> f.field("updatedAt").order(SortOrder.Desc)))));
             case "newest":
                 map.put("updatedAt", SortOrder.Desc);
                 map.put("createdAt", SortOrder.Desc);
@@ -523,22 +790,24 @@ public class PostsServiceImpl implements PostService {
             case "priceHigh":
                 map.put("price", SortOrder.Desc);
                 break;
+            case "distance":
+                if (geo != null && geo.hasCenter()) {
+                    return new ArrayList<>(List.of(SortOptions.of(so -> so.geoDistance(g -> g
+                            .field("location")
+                            .location(l -> l.latlon(ll -> ll.lat(geo.getLat()).lon(geo.getLon())))
+                            .order(SortOrder.Asc)
+                            .unit(DistanceUnit.Kilometers)))));
+                }
+                map.put("updatedAt", SortOrder.Desc);
+                map.put("createdAt", SortOrder.Desc);
+                break;
         }
-        return map;
+        List<SortOptions> sortOptions = new ArrayList<>();
+        map.forEach((k, v) -> sortOptions.add(SortOptions.of(so -> so.field(f -> f.field(k).order(v)))));
+        return sortOptions;
     }
 
 
-    public BoolQuery buildBoolQueryRecommend(List<String> values) {
-        return BoolQuery.of(b -> {
-            List<Query> shouldQueries = new ArrayList<>();
-            for (String value : values) {
-                shouldQueries.add(Query.of(m -> m.wildcard(w -> w.field("content").value("*" + value + "*"))));
-                shouldQueries.add(Query.of(m -> m.wildcard(w -> w.field("title").value("*" + value + "*"))));
-            }
-            return b.should(shouldQueries).minimumShouldMatch("1");
-        });
-    }
-
     @Async(value = "taskExecutorNoti")
     public void notiPost(Post post) {
         try {
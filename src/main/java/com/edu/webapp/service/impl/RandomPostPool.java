@@ -0,0 +1,73 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.model.enums.ActiveStatus;
+import com.edu.webapp.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A uniform random sample of active post ids, refreshed in the background, so drawing random posts for a request
+ * costs no database scan. Only ids are kept: callers fetch the drawn documents, and posts hidden or deleted since
+ * the refresh are simply not found in the index.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RandomPostPool {
+    private static final int CHUNK_SIZE = 5000;
+
+    private final PostRepository postRepository;
+
+    @Value("${app.random-pool.size:500}")
+    private int poolSize;
+
+    private volatile String[] pool = new String[0];
+
+    public List<String> draw(int size, Set<String> exclude) {
+        String[] snapshot = pool;
+        List<String> result = new ArrayList<>();
+        Set<Integer> picked = new HashSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Rejection sampling stays O(size) as long as the pool is much larger than the draw
+        int attempts = 0;
+        while (result.size() < size && picked.size() < snapshot.length && attempts++ < size * 4) {
+            int index = random.nextInt(snapshot.length);
+            if (picked.add(index) && !exclude.contains(snapshot[index])) result.add(snapshot[index]);
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${app.random-pool.refresh-interval:300000}")
+    public void refresh() {
+        try {
+            // Reservoir sampling over the keyset-paged ids, so every active post has the same chance whatever the table size
+            List<String> reservoir = new ArrayList<>(poolSize);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long seen = 0;
+            String lastId = "";
+            List<String> ids;
+            while (!(ids = postRepository.findIdsAfter(ActiveStatus.ACTIVE, lastId, PageRequest.of(0, CHUNK_SIZE))).isEmpty()) {
+                for (String id : ids) {
+                    seen++;
+                    if (reservoir.size() < poolSize) reservoir.add(id);
+                    else {
+                        long slot = random.nextLong(seen);
+                        if (slot < poolSize) reservoir.set((int) slot, id);
+                    }
+                }
+                lastId = ids.get(ids.size() - 1);
+            }
+            pool = reservoir.toArray(new String[0]);
+            log.info("Refreshed random post pool with {} of {} active posts", reservoir.size(), seen);
+        } catch (Exception e) {
+            log.error("Refresh random post pool failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.model.dto.PostTitleDto;
+import com.edu.webapp.model.dto.UserPostDto;
+import com.edu.webapp.model.enums.ActiveStatus;
+import com.edu.webapp.repository.CommentRepository;
+import com.edu.webapp.repository.LikePostRepository;
+import com.edu.webapp.repository.PostRepository;
+import com.edu.webapp.utils.TextUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item-to-item recommendations. A scheduled job turns likes and comments into cosine similarity between posts
+ * (two posts are similar when the same users engaged with both) and keeps the top neighbors of every post in memory.
+ * A user's recommendations are the neighbors of the posts they engaged with, plus posts matching their recent searches.
+ * Likes given since the last build are not in the snapshot, so posts the user likes now are dropped at request time.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RecommendService {
+    // Caps the pairs one very active user contributes, the build is quadratic in it
+    private static final int MAX_ITEMS_PER_USER = 200;
+    private static final int MAX_POSTS_PER_TOKEN = 50;
+    private static final int POPULAR_SIZE = 200;
+    private static final double SEARCH_WEIGHT = 0.5;
+
+    private final LikePostRepository likePostRepository;
+    private final CommentRepository commentRepository;
+    private final PostRepository postRepository;
+    private final SearchHistoryService searchHistoryService;
+    private final LikedStateService likedStateService;
+
+    @Value("${app.recommend.neighbors:20}")
+    private int neighborSize;
+
+    private volatile Snapshot snapshot = new Snapshot(new HashMap<>(), new HashMap<>(), new HashMap<>(), new ArrayList<>());
+
+    private final Cache<String, List<String>> cacheRecommend = CacheBuilder
+            .newBuilder()
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .maximumSize(10000)
+            .build();
+
+    public List<String> recommend(String userId, String username, int size) {
+        List<String> candidates = cacheRecommend.getIfPresent(userId);
+        if (candidates == null) {
+            // Twice the size, so the posts liked since the build still leave enough to fill the page
+            candidates = rank(userId, username, size * 2);
+            cacheRecommend.put(userId, candidates);
+        }
+        Map<String, Boolean> liked = likedStateService.getLikedByUserId(userId, candidates);
+        return candidates.stream().filter(postId -> !liked.getOrDefault(postId, false)).limit(size).toList();
+    }
+
+    private List<String> rank(String userId, String username, int size) {
+        Snapshot current = snapshot;
+        Set<String> own = current.userItems.getOrDefault(userId, Collections.emptySet());
+        Map<String, Double> scores = new HashMap<>();
+        for (String postId : own) {
+            for (Neighbor neighbor : current.neighbors.getOrDefault(postId, Collections.emptyList()))
+                scores.merge(neighbor.postId, neighbor.score, Double::sum);
+        }
+        for (String keySearch : searchHistoryService.recent(username)) {
+            String folded = TextUtils.foldVietnamese(keySearch);
+            if (folded == null) continue;
+            for (String token : folded.split(" ")) {
+                for (String postId : current.tokenPosts.getOrDefault(token, Collections.emptyList()))
+                    scores.merge(postId, SEARCH_WEIGHT, Double::sum);
+            }
+        }
+        own.forEach(scores::remove);
+        List<String> result = new ArrayList<>(scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(size)
+                .map(Map.Entry::getKey)
+                .toList());
+        for (String postId : current.popular) {
+            if (result.size() >= size) break;
+            if (!own.contains(postId) && !result.contains(postId)) result.add(postId);
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${app.recommend.refresh-interval:3600000}")
+    public void rebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, Set<String>> userItems = new HashMap<>();
+            List<UserPostDto> interactions = new ArrayList<>(likePostRepository.findUserPostByActive(ActiveStatus.ACTIVE));
+            interactions.addAll(commentRepository.findUserPostByActive(ActiveStatus.ACTIVE));
+            for (UserPostDto interaction : interactions)
+                userItems.computeIfAbsent(interaction.getUserId(), key -> new HashSet<>()).add(interaction.getPostId());
+
+            Map<String, Integer> itemUsers = new HashMap<>();
+            Map<String, Map<String, Integer>> coCounts = new HashMap<>();
+            for (Set<String> items : userItems.values()) {
+                List<String> list = items.stream().limit(MAX_ITEMS_PER_USER).toList();
+                for (String item : list) itemUsers.merge(item, 1, Integer::sum);
+                for (int i = 0; i < list.size(); i++) {
+                    for (int j = i + 1; j < list.size(); j++) {
+                        coCounts.computeIfAbsent(list.get(i), key -> new HashMap<>()).merge(list.get(j), 1, Integer::sum);
+                        coCounts.computeIfAbsent(list.get(j), key -> new HashMap<>()).merge(list.get(i), 1, Integer::sum);
+                    }
+                }
+            }
+
+            Map<String, List<Neighbor>> neighbors = new HashMap<>();
+            coCounts.forEach((item, counts) -> {
+                double itemNorm = Math.sqrt(itemUsers.get(item));
+                neighbors.put(item, counts.entrySet().stream()
+                        .map(entry -> new Neighbor(entry.getKey(), entry.getValue() / (itemNorm * Math.sqrt(itemUsers.get(entry.getKey())))))
+                        .sorted(Comparator.comparingDouble((Neighbor neighbor) -> neighbor.score).reversed())
+                        .limit(neighborSize)
+                        .toList());
+            });
+
+            Comparator<String> byPopularity = Comparator.comparingInt((String postId) -> itemUsers.getOrDefault(postId, 0)).reversed();
+            Map<String, List<String>> tokenPosts = new HashMap<>();
+            for (PostTitleDto post : postRepository.findPostTitleByActive(ActiveStatus.ACTIVE)) {
+                String folded = TextUtils.foldVietnamese(post.getTitle());
+                if (folded == null) continue;
+                for (String token : new HashSet<>(Arrays.asList(folded.split(" ")))) {
+                    if (token.length() > 1) tokenPosts.computeIfAbsent(token, key -> new ArrayList<>()).add(post.getId());
+                }
+            }
+            tokenPosts.replaceAll((token, postIds) -> postIds.stream().sorted(byPopularity).limit(MAX_POSTS_PER_TOKEN).toList());
+
+            List<String> popular = itemUsers.keySet().stream().sorted(byPopularity).limit(POPULAR_SIZE).toList();
+            snapshot = new Snapshot(neighbors, userItems, tokenPosts, popular);
+            cacheRecommend.invalidateAll();
+            log.info("Rebuilt recommendations for {} posts and {} users in {} ms", neighbors.size(), userItems.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Rebuild recommendations failed: {}", e.getMessage());
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Neighbor {
+        private final String postId;
+        private final double score;
+    }
+
+    @AllArgsConstructor
+    private static class Snapshot {
+        private final Map<String, List<Neighbor>> neighbors;
+        private final Map<String, Set<String>> userItems;
+        private final Map<String, List<String>> tokenPosts;
+        private final List<String> popular;
+    }
+}
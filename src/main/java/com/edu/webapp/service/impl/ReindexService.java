@@ -0,0 +1,238 @@
+package com.edu.webapp.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import com.edu.webapp.entity.post.Post;
+import com.edu.webapp.entity.post.PostEls;
+import com.edu.webapp.entity.post.ReindexJob;
+import com.edu.webapp.error.ErrorCodes;
+import com.edu.webapp.error.ValidateException;
+import com.edu.webapp.model.enums.ActiveStatus;
+import com.edu.webapp.model.enums.ReindexStatus;
+import com.edu.webapp.model.response.ReindexRes;
+import com.edu.webapp.repository.PostRepository;
+import com.edu.webapp.repository.ReindexJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rebuilds the post index from MySQL into a new versioned index and then points the "post" alias at it,
+ * so searches keep hitting the old index until the new one is complete.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReindexService {
+    private static final String ALIAS = "post";
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final PostRepository postRepository;
+    private final ReindexJobRepository reindexJobRepository;
+    private final PostIndexService postIndexService;
+    private final SearchCacheService searchCacheService;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ThreadPoolTaskExecutor taskExecutorReindex;
+
+    @Value("${app.reindex.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.reindex.workers:4}")
+    private int workers;
+
+    private final AtomicReference<ReindexJob> running = new AtomicReference<>();
+    // Posts the outbox relay pushed while a job runs; like and view changes do not move updatedAt, so catchUp needs these too
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+    // Resumes the latest unfinished job if its index is still there, otherwise starts a new one
+    public ReindexRes start() throws IOException {
+        // Claimed before anything is created, so two concurrent starts cannot both create an index
+        ReindexJob job = new ReindexJob();
+        if (!running.compareAndSet(null, job)) throw new ValidateException(ErrorCodes.REINDEX_RUNNING);
+        try {
+            ReindexJob unfinished = reindexJobRepository.findFirstByOrderByCreatedAtDesc()
+                    .filter(j -> j.getStatus() != ReindexStatus.DONE)
+                    .orElse(null);
+            if (unfinished != null && elasticsearchOperations.indexOps(IndexCoordinates.of(unfinished.getIndexName())).exists()) job = unfinished;
+            else {
+                job.setIndexName(ALIAS + "_v" + OffsetDateTime.now().format(VERSION_FORMAT));
+                createIndex(job.getIndexName());
+            }
+            job.setStatus(ReindexStatus.RUNNING);
+            job.setMessage(null);
+            job.setTotalPost(postRepository.countByActive(ActiveStatus.ACTIVE).longValue());
+            changed.clear();
+            ReindexJob started = reindexJobRepository.save(job);
+            running.set(started);
+            taskExecutorReindex.execute(() -> run(started));
+            return toRes(started);
+        } catch (RuntimeException e) {
+            running.set(null);
+            throw e;
+        }
+    }
+
+    // Called by the relay before it pushes, so a push that still lands in the old index is replayed after the switch
+    public void postsChanged(Collection<String> postIds) {
+        if (running.get() != null) changed.addAll(postIds);
+    }
+
+    public ReindexRes status() {
+        ReindexJob job = running.get();
+        if (job == null) job = reindexJobRepository.findFirstByOrderByCreatedAtDesc()
+                .orElseThrow(() -> new ValidateException(ErrorCodes.REINDEX_NOT_EXIST));
+        return toRes(job);
+    }
+
+    private void run(ReindexJob job) {
+        try {
+            setRefreshInterval(job.getIndexName(), "-1");
+            String lastId = job.getLastPostId();
+            while (true) {
+                // A wave of chunks is indexed in parallel; the checkpoint only moves once the whole wave is in
+                List<List<String>> wave = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    List<String> ids = postRepository.findIdsAfter(ActiveStatus.ACTIVE, lastId, PageRequest.of(0, chunkSize));
+                    if (ids.isEmpty()) break;
+                    wave.add(ids);
+                    lastId = ids.get(ids.size() - 1);
+                }
+                if (wave.isEmpty()) break;
+                List<CompletableFuture<Long>> futures = wave.stream()
+                        .map(ids -> CompletableFuture.supplyAsync(() -> indexChunk(job.getIndexName(), ids), taskExecutorReindex))
+                        .toList();
+                for (int i = 0; i < futures.size(); i++) {
+                    long indexed = futures.get(i).join();
+                    job.setIndexed(job.getIndexed() + indexed);
+                    job.setFailed(job.getFailed() + wave.get(i).size() - indexed);
+                }
+                job.setLastPostId(lastId);
+                reindexJobRepository.save(job);
+                log.info("Reindex {}: {}/{} posts, {} docs/s", job.getIndexName(), job.getIndexed(), job.getTotalPost(), docsPerSecond(job));
+            }
+            setRefreshInterval(job.getIndexName(), "1s");
+            switchAlias(job.getIndexName());
+            catchUp(job);
+            searchCacheService.evictAll();
+            job.setStatus(ReindexStatus.DONE);
+            job.setFinishedAt(OffsetDateTime.now());
+            log.info("Reindex {} done: {} indexed, {} failed", job.getIndexName(), job.getIndexed(), job.getFailed());
+        } catch (Exception e) {
+            log.error("Reindex {} failed", job.getIndexName(), e);
+            job.setStatus(ReindexStatus.FAILED);
+            job.setMessage(e.getMessage());
+        } finally {
+            reindexJobRepository.save(job);
+            running.set(null);
+            changed.clear();
+        }
+    }
+
+    private long indexChunk(String indexName, List<String> ids) {
+        List<Post> posts = postRepository.findWithImagesByIdIn(ids).stream()
+                .filter(post -> post.getActive() == ActiveStatus.ACTIVE)
+                .toList();
+        List<PostEls> documents = postIndexService.buildDocuments(posts);
+        if (documents.isEmpty()) return 0;
+        List<IndexQuery> queries = documents.stream()
+                .map(document -> new IndexQueryBuilder().withId(document.getId()).withObject(document).build())
+                .toList();
+        try {
+            elasticsearchOperations.bulkIndex(queries, IndexCoordinates.of(indexName));
+            return documents.size();
+        } catch (BulkFailureException e) {
+            log.warn("Reindex {}: {} documents rejected", indexName, e.getFailedDocuments().size());
+            return documents.size() - e.getFailedDocuments().size();
+        }
+    }
+
+    // Posts changed while the bulk load ran may have been written to the old index only, so replay them from MySQL
+    private void catchUp(ReindexJob job) {
+        Set<String> replay = new LinkedHashSet<>(postRepository.findIdsUpdatedSince(job.getCreatedAt().minusMinutes(1)));
+        replay.addAll(changed);
+        List<String> ids = new ArrayList<>(replay);
+        IndexCoordinates index = IndexCoordinates.of(job.getIndexName());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            indexChunk(job.getIndexName(), chunk);
+            for (Post post : postRepository.findByIdIn(chunk)) {
+                if (post.getActive() != ActiveStatus.ACTIVE) elasticsearchOperations.delete(post.getId(), index);
+            }
+        }
+        log.info("Reindex {}: replayed {} posts updated during the run", job.getIndexName(), ids.size());
+    }
+
+    private void createIndex(String indexName) {
+        IndexOperations postIndexOps = elasticsearchOperations.indexOps(PostEls.class);
+        elasticsearchOperations.indexOps(IndexCoordinates.of(indexName))
+                .create(postIndexOps.createSettings(PostEls.class), postIndexOps.createMapping(PostEls.class));
+    }
+
+    private void setRefreshInterval(String indexName, String interval) throws IOException {
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(indexName)
+                .settings(s -> s.refreshInterval(t -> t.time(interval))));
+    }
+
+    // One update_aliases call, so readers see either the old index or the new one, never neither
+    private void switchAlias(String indexName) throws IOException {
+        List<Action> actions = new ArrayList<>();
+        actions.add(Action.of(a -> a.add(add -> add.index(indexName).alias(ALIAS))));
+        if (elasticsearchClient.indices().existsAlias(e -> e.name(ALIAS)).value()) {
+            for (String oldIndex : elasticsearchClient.indices().getAlias(g -> g.name(ALIAS)).result().keySet()) {
+                if (!oldIndex.equals(indexName))
+                    actions.add(Action.of(a -> a.remove(remove -> remove.index(oldIndex).alias(ALIAS))));
+            }
+        } else if (elasticsearchClient.indices().exists(e -> e.index(ALIAS)).value()) {
+            // The original concrete "post" index has to go for the alias to take its name
+            actions.add(Action.of(a -> a.removeIndex(remove -> remove.index(ALIAS))));
+        }
+        elasticsearchClient.indices().updateAliases(u -> u.actions(actions));
+        log.info("Alias {} now points to {}", ALIAS, indexName);
+    }
+
+    private double docsPerSecond(ReindexJob job) {
+        long seconds = Math.max(1, Duration.between(job.getCreatedAt(), OffsetDateTime.now()).getSeconds());
+        return (double) job.getIndexed() / seconds;
+    }
+
+    private ReindexRes toRes(ReindexJob job) {
+        long totalPost = job.getTotalPost() == null ? 0 : job.getTotalPost();
+        return ReindexRes.builder()
+                .id(job.getId())
+                .indexName(job.getIndexName())
+                .status(job.getStatus())
+                .totalPost(totalPost)
+                .indexed(job.getIndexed())
+                .failed(job.getFailed())
+                .progress(totalPost == 0 ? 100.0 : Math.min(100.0, 100.0 * (job.getIndexed() + job.getFailed()) / totalPost))
+                .docsPerSecond(job.getCreatedAt() == null ? 0 : docsPerSecond(job))
+                .message(job.getMessage())
+                .createdAt(job.getCreatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.entity.post.ReportPost;
+import com.edu.webapp.model.dto.StatusCountDto;
+import com.edu.webapp.repository.PostRepository;
+import com.edu.webapp.repository.ReportPostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Post status history for report 3: one REPORT_POST row per finished day, written by the nightly job.
+ * The current day is never stored, it is counted on read.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReportPostService {
+    private final PostRepository postRepository;
+    private final ReportPostRepository reportPostRepository;
+
+    public ReportPost current() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (StatusCountDto dto : postRepository.countGroupByActive()) {
+            if (dto.getActive() != null) counts.put(dto.getActive().name(), dto.getTotal().intValue());
+        }
+        ReportPost reportPost = new ReportPost();
+        reportPost.setPostActive(counts.getOrDefault("ACTIVE", 0));
+        reportPost.setPostInactive(counts.getOrDefault("INACTIVE", 0));
+        reportPost.setPostPending(counts.getOrDefault("PENDING", 0));
+        reportPost.setPostReject(counts.getOrDefault("REJECT", 0));
+        return reportPost;
+    }
+
+    public void snapshot(LocalDate day) {
+        Date date = Date.valueOf(day);
+        reportPostRepository.deleteByCreatedAt(date);
+        ReportPost reportPost = current();
+        reportPost.setCreatedAt(date);
+        reportPostRepository.save(reportPost);
+        log.info("Saved post status snapshot of {}", day);
+    }
+
+    public Map<LocalDate, ReportPost> findRange(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, ReportPost> reportPosts = new HashMap<>();
+        reportPostRepository.findByCreatedAtBetweenOrderByCreatedAt(Date.valueOf(startDate), Date.valueOf(endDate))
+                .forEach(reportPost -> reportPosts.put(reportPost.getCreatedAt().toLocalDate(), reportPost));
+        LocalDate today = LocalDate.now();
+        if (!today.isBefore(startDate) && !today.isAfter(endDate)) reportPosts.put(today, current());
+        return reportPosts;
+    }
+}
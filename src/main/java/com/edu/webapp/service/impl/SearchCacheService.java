@@ -0,0 +1,126 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.model.request.FilterPostReq;
+import com.edu.webapp.model.request.FilterRangeReq;
+import com.edu.webapp.model.response.CacheStatsRes;
+import com.edu.webapp.model.response.FacetRes;
+import com.edu.webapp.utils.TextUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class SearchCacheService {
+
+    @Value("${app.search-cache.ttl:60}")
+    private long ttl;
+
+    @Value("${app.search-cache.maximum-size:5000}")
+    private long maximumSize;
+
+    private Cache<SearchCacheKey, SearchCacheEntry> cacheSearch;
+
+    @PostConstruct
+    public void init() {
+        cacheSearch = Caffeine.newBuilder()
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public SearchCacheEntry get(FilterPostReq filterPostReq) {
+        return cacheSearch.getIfPresent(buildKey(filterPostReq));
+    }
+
+    public void put(FilterPostReq filterPostReq, List<String> ids, long total, Map<String, List<FacetRes>> facets) {
+        cacheSearch.put(buildKey(filterPostReq), new SearchCacheEntry(ids, total, facets));
+    }
+
+    // Drops every cached search whose filter could contain a post from this province/district
+    public void evict(String province, String district) {
+        cacheSearch.asMap().keySet().removeIf(key ->
+                (key.getProvince() == null || Objects.equals(key.getProvince(), province))
+                        && (key.getDistrict() == null || Objects.equals(key.getDistrict(), district)));
+    }
+
+    public void evictAll() {
+        cacheSearch.invalidateAll();
+    }
+
+    public CacheStatsRes stats() {
+        CacheStats stats = cacheSearch.stats();
+        return CacheStatsRes.builder()
+                .size(cacheSearch.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+
+    private SearchCacheKey buildKey(FilterPostReq filterPostReq) {
+        String type = StringUtils.trimToNull(filterPostReq.getType());
+        return new SearchCacheKey(
+                StringUtils.trimToNull(filterPostReq.getProvince()),
+                StringUtils.trimToNull(filterPostReq.getDistrict()),
+                "all".equals(type) ? null : type,
+                StringUtils.trimToNull(filterPostReq.getStatusRoom()),
+                TextUtils.foldVietnamese(filterPostReq.getKey()),
+                StringUtils.defaultIfBlank(filterPostReq.getFieldSort(), "newest"),
+                rangeFrom(filterPostReq.getPrice()),
+                rangeTo(filterPostReq.getPrice()),
+                rangeFrom(filterPostReq.getAcreage()),
+                rangeTo(filterPostReq.getAcreage()),
+                Boolean.TRUE.equals(filterPostReq.getFacets()),
+                filterPostReq.getPage(),
+                filterPostReq.getSize());
+    }
+
+    private Double rangeFrom(FilterRangeReq range) {
+        return range == null ? null : range.getFrom();
+    }
+
+    private Double rangeTo(FilterRangeReq range) {
+        return range == null ? null : range.getTo();
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class SearchCacheKey {
+        private String province;
+        private String district;
+        private String type;
+        private String statusRoom;
+        private String key;
+        private String fieldSort;
+        private Double priceFrom;
+        private Double priceTo;
+        private Double acreageFrom;
+        private Double acreageTo;
+        private boolean facets;
+        private Integer page;
+        private Integer size;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class SearchCacheEntry {
+        private List<String> ids;
+        private long total;
+        private Map<String, List<FacetRes>> facets;
+    }
+}
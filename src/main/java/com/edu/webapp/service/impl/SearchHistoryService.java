@@ -0,0 +1,122 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.entity.post.LogSearch;
+import com.edu.webapp.repository.LogSearchRepository;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.EvictingQueue;
+import com.google.common.collect.Lists;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SearchHistoryService {
+    private static final int RECENT_SIZE = 10;
+    // LOG_SEARCH.KEY_SEARCH is a VARCHAR(255)
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final LogSearchRepository logSearchRepository;
+
+    @Value("${app.search-history.batch-size:500}")
+    private int batchSize;
+
+    private final LinkedBlockingQueue<LogSearch> pending = new LinkedBlockingQueue<>(50000);
+
+    // Most recent searches per user, oldest first; seeded from LOG_SEARCH the first time a user is seen
+    private final LoadingCache<String, EvictingQueue<String>> cacheRecent = CacheBuilder
+            .newBuilder()
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .maximumSize(10000)
+            .build(new CacheLoader<String, EvictingQueue<String>>() {
+                @Override
+                public EvictingQueue<String> load(String key) {
+                    EvictingQueue<String> recent = EvictingQueue.create(RECENT_SIZE);
+                    recent.addAll(Lists.reverse(logSearchRepository.findByUserId(key)));
+                    return recent;
+                }
+            });
+
+    public void record(String username, String key) {
+        if (key.length() > MAX_KEY_LENGTH) key = key.substring(0, MAX_KEY_LENGTH);
+        EvictingQueue<String> recent = cacheRecent.getUnchecked(username);
+        synchronized (recent) {
+            recent.add(key);
+        }
+        LogSearch logSearch = new LogSearch();
+        logSearch.setUserId(username);
+        logSearch.setKeySearch(key);
+        logSearch.setCreatedAt(OffsetDateTime.now());
+        if (!pending.offer(logSearch)) log.warn("Search history queue is full, dropping search of {}", username);
+    }
+
+    // Most recent first, same order as LogSearchRepository.findByUserId
+    public List<String> recent(String username) {
+        EvictingQueue<String> recent = cacheRecent.getUnchecked(username);
+        synchronized (recent) {
+            return Lists.reverse(new ArrayList<>(recent));
+        }
+    }
+
+    // A failed batch goes back to the queue and the flush stops until the next run; only what no longer fits is lost.
+    // A batch rejected for its data would fail the same way again, so it is written row by row and only the bad rows are dropped.
+    @Scheduled(fixedDelayString = "${app.search-history.flush-interval:2000}")
+    public void flush() {
+        List<LogSearch> batch = new ArrayList<>();
+        while (pending.drainTo(batch, batchSize) > 0) {
+            try {
+                logSearchRepository.saveAll(batch);
+            } catch (DataIntegrityViolationException e) {
+                if (!saveEach(batch)) return;
+            } catch (Exception e) {
+                requeue(batch, e);
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private boolean saveEach(List<LogSearch> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            LogSearch logSearch = batch.get(i);
+            logSearch.setId(null);
+            try {
+                logSearchRepository.save(logSearch);
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Drop search history of {}: {}", logSearch.getUserId(), e.getMessage());
+            } catch (Exception e) {
+                requeue(batch.subList(i, batch.size()), e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void requeue(List<LogSearch> rows, Exception e) {
+        int dropped = 0;
+        for (LogSearch logSearch : rows) {
+            // The failed insert may have assigned an id, the retry has to insert it as a new row again
+            logSearch.setId(null);
+            if (!pending.offer(logSearch)) dropped++;
+        }
+        log.error("Flush search history failed, retry next run ({} rows dropped): {}", dropped, e.getMessage());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
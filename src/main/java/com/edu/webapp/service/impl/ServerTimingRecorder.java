@@ -0,0 +1,102 @@
+package com.edu.webapp.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Times the phases of a request on the request thread. Each phase is added to a per-request span map that
+ * ServerTimingAdvice turns into the Server-Timing header, and to a "post.phase" histogram tagged with the phase.
+ */
+@Service
+@RequiredArgsConstructor
+public class ServerTimingRecorder {
+    private static final ThreadLocal<Map<String, Long>> SPANS = ThreadLocal.withInitial(() -> Collections.synchronizedMap(new LinkedHashMap<>()));
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public <T> T time(String phase, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    public <T> T timeIO(String phase, IOSupplier<T> supplier) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    // The request's span map, for phases that run on other threads
+    public Map<String, Long> currentSpans() {
+        return SPANS.get();
+    }
+
+    public <T> T time(Map<String, Long> spans, String phase, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(spans, phase, System.nanoTime() - start);
+        }
+    }
+
+    public <T> CompletableFuture<T> timeAsync(String phase, Supplier<CompletableFuture<T>> supplier) {
+        Map<String, Long> spans = currentSpans();
+        long start = System.nanoTime();
+        return supplier.get().whenComplete((result, error) -> record(spans, phase, System.nanoTime() - start));
+    }
+
+    public void record(String phase, long nanos) {
+        record(currentSpans(), phase, nanos);
+    }
+
+    private void record(Map<String, Long> spans, String phase, long nanos) {
+        spans.merge(phase, nanos, Long::sum);
+        timers.computeIfAbsent(phase, key -> Timer.builder("post.phase")
+                        .tag("phase", key)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Returns the header value for the spans recorded on this thread and clears them, null when nothing was timed
+    public String drainHeader() {
+        Map<String, Long> spans = SPANS.get();
+        SPANS.remove();
+        synchronized (spans) {
+            if (spans.isEmpty()) return null;
+            return spans.entrySet().stream()
+                    .map(entry -> String.format(Locale.ROOT, "%s;dur=%.2f", entry.getKey(), entry.getValue() / 1_000_000.0))
+                    .collect(Collectors.joining(", "));
+        }
+    }
+
+    public void clear() {
+        SPANS.remove();
+    }
+
+    @FunctionalInterface
+    public interface IOSupplier<T> {
+        T get() throws IOException;
+    }
+}
@@ -0,0 +1,89 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.model.dto.SuggestTermDto;
+import com.edu.webapp.model.enums.ActiveStatus;
+import com.edu.webapp.repository.LogSearchRepository;
+import com.edu.webapp.repository.PostRepository;
+import com.edu.webapp.utils.TextUtils;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SuggestService {
+    private final PostRepository postRepository;
+    private final LogSearchRepository logSearchRepository;
+
+    @Value("${app.suggest.top-keywords:5000}")
+    private int topKeywords;
+
+    // Sorted by folded text, so every completion of a prefix is one contiguous range
+    private volatile Suggestion[] suggestions = new Suggestion[0];
+
+    public List<String> suggest(String key, int size) {
+        String prefix = TextUtils.foldVietnamese(key);
+        if (prefix == null) return new ArrayList<>();
+        Suggestion[] snapshot = suggestions;
+        // The whole prefix range is scanned through a min-heap of the size best weights, so a short prefix
+        // still returns its heaviest completions and not just the alphabetically first ones
+        PriorityQueue<Suggestion> top = new PriorityQueue<>(size + 1, Comparator.comparingLong((Suggestion s) -> s.weight));
+        for (int i = lowerBound(snapshot, prefix); i < snapshot.length && snapshot[i].folded.startsWith(prefix); i++) {
+            top.offer(snapshot[i]);
+            if (top.size() > size) top.poll();
+        }
+        List<Suggestion> matches = new ArrayList<>(top);
+        matches.sort(Comparator.comparingLong((Suggestion s) -> s.weight).reversed());
+        return matches.stream().map(s -> s.text).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${app.suggest.refresh-interval:600000}")
+    public void rebuild() {
+        try {
+            Map<String, Suggestion> merged = new HashMap<>();
+            for (String title : postRepository.findTitleByActive(ActiveStatus.ACTIVE)) add(merged, title, 1);
+            for (SuggestTermDto district : postRepository.countGroupByDistrict(ActiveStatus.ACTIVE))
+                add(merged, district.getTerm(), district.getCount());
+            for (SuggestTermDto keyword : logSearchRepository.findTopKeySearch(PageRequest.of(0, topKeywords)))
+                add(merged, keyword.getTerm(), keyword.getCount());
+            Suggestion[] rebuilt = merged.values().toArray(new Suggestion[0]);
+            Arrays.sort(rebuilt, Comparator.comparing((Suggestion s) -> s.folded));
+            suggestions = rebuilt;
+            log.info("Rebuilt {} suggestions", rebuilt.length);
+        } catch (Exception e) {
+            log.error("Rebuild suggestions failed: {}", e.getMessage());
+        }
+    }
+
+    private void add(Map<String, Suggestion> merged, String text, long weight) {
+        String folded = TextUtils.foldVietnamese(text);
+        if (folded == null) return;
+        Suggestion existing = merged.get(folded);
+        if (existing == null) merged.put(folded, new Suggestion(text.trim(), folded, weight));
+        else existing.weight += weight;
+    }
+
+    private int lowerBound(Suggestion[] snapshot, String prefix) {
+        int low = 0, high = snapshot.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot[mid].folded.compareTo(prefix) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    @AllArgsConstructor
+    private static class Suggestion {
+        private final String text;
+        private final String folded;
+        private long weight;
+    }
+}
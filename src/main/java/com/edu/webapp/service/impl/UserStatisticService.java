@@ -0,0 +1,110 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.entity.user.UserStatistic;
+import com.edu.webapp.error.ErrorCodes;
+import com.edu.webapp.error.ValidateException;
+import com.edu.webapp.model.dto.UserPostCountDto;
+import com.edu.webapp.model.enums.ActiveStatus;
+import com.edu.webapp.repository.PostRepository;
+import com.edu.webapp.repository.UserStatisticRepository;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UserStatisticService {
+    private final UserStatisticRepository userStatisticRepository;
+    private final PostRepository postRepository;
+
+    private final LoadingCache<String, UserStatistic> cacheStatistic = CacheBuilder
+            .newBuilder()
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .maximumSize(10000)
+            .build(new CacheLoader<String, UserStatistic>() {
+                @Override
+                public UserStatistic load(String key) {
+                    return loadAll(Collections.singleton(key)).get(key);
+                }
+
+                @Override
+                public Map<String, UserStatistic> loadAll(Iterable<? extends String> keys) {
+                    Set<String> emails = new HashSet<>();
+                    keys.forEach(emails::add);
+                    Map<String, UserStatistic> result = userStatisticRepository.findAllByEmailIn(emails).stream()
+                            .collect(Collectors.toMap(UserStatistic::getEmail, Function.identity()));
+                    emails.removeAll(result.keySet());
+                    if (!emails.isEmpty()) result.putAll(seed(emails));
+                    return result;
+                }
+            });
+
+    public Integer getTotalPost(String email) {
+        return getTotalPosts(Collections.singleton(email)).getOrDefault(email, 0);
+    }
+
+    public Map<String, Integer> getTotalPosts(Collection<String> emails) {
+        if (emails.isEmpty()) return new HashMap<>();
+        try {
+            return cacheStatistic.getAll(emails).entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getTotalPost()));
+        } catch (ExecutionException e) {
+            log.error(e.getMessage(), e);
+            throw new ValidateException(ErrorCodes.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    public void postCreated(String email, ActiveStatus status) {
+        increase(email, 1, status == ActiveStatus.ACTIVE ? 1 : 0);
+    }
+
+    public void postStatusChanged(String email, ActiveStatus oldStatus, ActiveStatus newStatus) {
+        int activePost = (newStatus == ActiveStatus.ACTIVE ? 1 : 0) - (oldStatus == ActiveStatus.ACTIVE ? 1 : 0);
+        if (activePost != 0) increase(email, 0, activePost);
+    }
+
+    // Call after the post itself is saved: an author without a row is counted from POST, and that count must include the change
+    private void increase(String email, int totalPost, int activePost) {
+        userStatisticRepository.increase(email, totalPost, activePost);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheStatistic.invalidate(email);
+                }
+            });
+        } else cacheStatistic.invalidate(email);
+    }
+
+    private Map<String, UserStatistic> seed(Set<String> emails) {
+        Map<String, UserStatistic> result = new HashMap<>();
+        for (String email : emails) result.put(email, new UserStatistic(email, 0, 0));
+        for (UserPostCountDto count : postRepository.countGroupByCreatedBy(emails, ActiveStatus.ACTIVE)) {
+            UserStatistic userStatistic = result.get(count.getEmail());
+            userStatistic.setTotalPost(count.getTotalPost().intValue());
+            userStatistic.setActivePost(count.getActivePost().intValue());
+        }
+        try {
+            for (UserStatistic userStatistic : result.values()) {
+                // A writer created the row first, so its counts win over the ones counted here
+                if (userStatisticRepository.seed(userStatistic.getEmail(), userStatistic.getTotalPost(), userStatistic.getActivePost()) == 0)
+                    userStatisticRepository.findById(userStatistic.getEmail()).ifPresent(stored -> result.put(stored.getEmail(), stored));
+            }
+        } catch (Exception e) {
+            log.warn("Seed user statistic failed: {}", e.getMessage());
+        }
+        return result;
+    }
+}
@@ -9,11 +9,13 @@ import com.edu.webapp.error.ErrorCodes;
 import com.edu.webapp.error.ValidateException;
 import com.edu.webapp.mapper.ProvinceMapperImpl;
 import com.edu.webapp.mapper.UserMapper;
+import com.edu.webapp.model.enums.ActiveStatus;
 import com.edu.webapp.model.enums.NotiStatus;
 import com.edu.webapp.model.request.*;
 import com.edu.webapp.model.response.AuthRes;
 import com.edu.webapp.model.response.UserRes;
 import com.edu.webapp.repository.OtpRepository;
+import com.edu.webapp.repository.PostRepository;
 import com.edu.webapp.repository.RoleRepository;
 import com.edu.webapp.repository.UserRepository;
 import com.edu.webapp.security.JwtCommon;
@@ -53,6 +55,10 @@ public class UsersServiceImpl implements UsersService {
     private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789!@#$%^&*()_+";
     private final ProvinceMapperImpl provinceMapperImpl;
     private final RoleRepository roleRepository;
+    private final PostDetailCacheService postDetailCacheService;
+    private final DailyStatisticService dailyStatisticService;
+    private final PostRepository postRepository;
+    private final PostOutboxService postOutboxService;
 
     @Override
     public AuthRes register(UserCreateReq userCreateReq) {
@@ -64,6 +70,7 @@ public class UsersServiceImpl implements UsersService {
         user.setPassword(passwordEncoder.encode(userCreateReq.getPassword()));
         user.setRoles(Collections.singletonList(cacheLocalConfig.getRoleByName("USER")));
         userRepository.save(user);
+        dailyStatisticService.registered();
         return AuthRes.builder()
                 .token(jwtCommon.generateToken(user))
                 .refreshToken(jwtCommon.generateRefreshToken(user))
@@ -90,6 +97,7 @@ public class UsersServiceImpl implements UsersService {
     }
 
     @Override
+    @Transactional
     public UserRes updateInfo(UserChangeReq req) {
         String email = jwtCommon.extractUsername();
         User user = userRepository.findByEmail(email).orElseThrow(() -> new ValidateException(ErrorCodes.USER_NOT_EXIST));
@@ -104,6 +112,9 @@ public class UsersServiceImpl implements UsersService {
         user.setAvatar(req.getAvatar());
         user.setIntroduce(req.getIntroduce());
         userRepository.save(user);
+        // The author card is copied into every indexed post, so they are all pushed again
+        postRepository.findIdsByCreatedByAndActive(email, ActiveStatus.ACTIVE).forEach(postOutboxService::enqueue);
+        postDetailCacheService.invalidateAuthor(email);
         return userMapper.userToUserRes(user);
     }
 
@@ -30,6 +30,7 @@ public class VNPayService {
     private final PayAdRepository payAdRepository;
     private final AdvertisingPackageRepository advertisingPackageRepository;
     private final UserRepository userRepository;
+    private final DailyStatisticService dailyStatisticService;
     public String createOrder(String orderId,int total, String orderInfor, String urlReturn){
         String vnp_Version = "2.1.0";
         String vnp_Command = "pay";
@@ -133,11 +134,13 @@ public class VNPayService {
                     AdvertisingPackage advertisingPackage = advertisingPackageRepository.findById(payAd.getAdvertisingPackage())
                             .orElseThrow(() -> new ValidateException(ErrorCodes.ADVERTISING_PACKAGE_VALID));
                     LocalDate rechargeVip = user.getRechargeVip();
+                    LocalDate previousRechargeVip = rechargeVip;
                     if (rechargeVip != null) {
                         rechargeVip.plusDays(advertisingPackage.getCountDate());
                     } else rechargeVip = LocalDate.now().plusDays(advertisingPackage.getCountDate());
                     user.setRechargeVip(rechargeVip);
                     userRepository.save(user);
+                    dailyStatisticService.vipExpiryChanged(previousRechargeVip, rechargeVip);
                 }
                 if (payAd.getType()==1){
                     payAd.setActive(ActiveStatus.ACTIVE);
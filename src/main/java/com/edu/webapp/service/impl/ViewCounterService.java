@@ -0,0 +1,100 @@
+package com.edu.webapp.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.json.JsonData;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind post views. A view only bumps an in-memory counter; the flush turns the accumulated
+ * counts into relative UPDATEs, so concurrent views never overwrite each other.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ViewCounterService {
+    private static final String INDEX = "post";
+    // VIEW is a reserved word in MySQL, so the column is quoted
+    private static final String UPDATE_VIEW = "UPDATE post SET `view` = `view` + ? WHERE id = ?";
+    private static final String SCRIPT_VIEW = "ctx._source.view = (ctx._source.view == null ? 0 : ctx._source.view) + params.views";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ElasticsearchClient elasticsearchClient;
+    private final PostDetailCacheService postDetailCacheService;
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @Value("${app.view-counter.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.view-counter.mirror-es:true}")
+    private boolean mirrorEs;
+
+    public void increment(String postId) {
+        pending.computeIfAbsent(postId, key -> new LongAdder()).increment();
+    }
+
+    // Views counted since the last flush, to add on top of the value read from MySQL
+    public long pending(String postId) {
+        LongAdder adder = pending.get(postId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    // Counters stay in the map once created: removing an idle one could race with a view that already holds it,
+    // and that view would be lost. The map is bounded by the number of posts viewed since startup.
+    @Scheduled(fixedDelayString = "${app.view-counter.flush-interval:5000}")
+    public void flush() {
+        Map<String, Long> views = new HashMap<>();
+        pending.forEach((postId, adder) -> {
+            long count = adder.sumThenReset();
+            if (count > 0) views.put(postId, count);
+        });
+        if (views.isEmpty()) return;
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(views.entrySet());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<Map.Entry<String, Long>> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_VIEW, batch, batch.size(), (ps, entry) -> {
+                    ps.setLong(1, entry.getValue());
+                    ps.setString(2, entry.getKey());
+                });
+            } catch (Exception e) {
+                log.error("Flush post views failed, retry next run: {}", e.getMessage());
+                batch.forEach(entry -> pending.computeIfAbsent(entry.getKey(), key -> new LongAdder()).add(entry.getValue()));
+                continue;
+            }
+            // Adding to the cached count would count twice when the entry was loaded after the UPDATE, so it is reloaded instead
+            batch.forEach(entry -> postDetailCacheService.invalidate(entry.getKey()));
+            if (mirrorEs) mirror(batch);
+        }
+    }
+
+    // Best effort: the outbox relay rebuilds documents from MySQL anyway, this only keeps the indexed count fresh in between
+    private void mirror(List<Map.Entry<String, Long>> batch) {
+        List<BulkOperation> operations = batch.stream()
+                .map(entry -> BulkOperation.of(o -> o.update(u -> u
+                        .index(INDEX)
+                        .id(entry.getKey())
+                        .action(a -> a.script(s -> s.inline(i -> i.source(SCRIPT_VIEW).params("views", JsonData.of(entry.getValue()))))))))
+                .toList();
+        try {
+            elasticsearchClient.bulk(b -> b.operations(operations));
+        } catch (Exception e) {
+            log.warn("Mirror post views to elasticsearch failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
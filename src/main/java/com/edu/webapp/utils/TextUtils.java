@@ -0,0 +1,23 @@
+package com.edu.webapp.utils;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public class TextUtils {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    // Same folding as the vi_folding analyzer: "Phòng  Đẹp" -> "phong dep"
+    public static String foldVietnamese(String value) {
+        if (StringUtils.isBlank(value)) return null;
+        String normalized = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        normalized = DIACRITICS.matcher(normalized).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D');
+        return SPACES.matcher(normalized).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
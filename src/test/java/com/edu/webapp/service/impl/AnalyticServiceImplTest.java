@@ -0,0 +1,61 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.entity.user.DailyStatistic;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The daily rollup only stores days that had activity; the chart series must still have one point per day.
+ */
+class AnalyticServiceImplTest {
+    private final AnalyticServiceImpl analyticService = new AnalyticServiceImpl(mock(ReportPostService.class),
+            mock(MonthlyEngagementService.class), mock(DailyStatisticService.class), mock(ThreadPoolTaskExecutor.class));
+
+    @Test
+    void seriesFillsMissingDaysWithZero() {
+        LocalDate start = LocalDate.of(2024, 2, 27);
+        Map<LocalDate, DailyStatistic> rows = Map.of(
+                start, statistic(start, 3),
+                start.plusDays(2), statistic(start.plusDays(2), 5));
+
+        assertThat(series(rows, start, start.plusDays(3), DailyStatistic::getRegistrations))
+                .containsExactly(3, 0, 5, 0);
+    }
+
+    @Test
+    void seriesTreatsNullValuesAsZero() {
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        DailyStatistic row = statistic(day, 1);
+        row.setLogins(null);
+
+        assertThat(series(Map.of(day, row), day, day, DailyStatistic::getLogins)).containsExactly(0);
+    }
+
+    @Test
+    void seriesIsEmptyWhenTheRangeIsReversed() {
+        LocalDate day = LocalDate.of(2024, 1, 1);
+
+        assertThat(series(Map.of(), day, day.minusDays(1), DailyStatistic::getLogins)).isEmpty();
+    }
+
+    private List<Integer> series(Map<LocalDate, DailyStatistic> rows, LocalDate start, LocalDate end,
+                                 Function<DailyStatistic, Integer> value) {
+        return ReflectionTestUtils.invokeMethod(analyticService, "series", rows, start, end, value);
+    }
+
+    private DailyStatistic statistic(LocalDate day, int registrations) {
+        DailyStatistic statistic = new DailyStatistic();
+        statistic.setStatDate(day);
+        statistic.setRegistrations(registrations);
+        return statistic;
+    }
+}
@@ -0,0 +1,53 @@
+package com.edu.webapp.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import com.edu.webapp.error.ErrorCodes;
+import com.edu.webapp.error.ValidateException;
+import com.edu.webapp.model.dto.SearchCursorDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A cursor whose point-in-time ES no longer knows is reported as an invalid cursor, not as a server error.
+ */
+class ElasticsearchServiceCursorTest {
+    private final ElasticsearchClient elasticsearchClient = mock(ElasticsearchClient.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ElasticsearchService<Object> elasticsearchService = new ElasticsearchService<>(elasticsearchClient, null, objectMapper);
+
+    @Test
+    void expiredPointInTimeIsAnInvalidCursor() throws Exception {
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(Object.class))).thenThrow(new ElasticsearchException("search",
+                ErrorResponse.of(e -> e.status(404).error(c -> c.type("search_context_missing_exception").reason("No search context found")))));
+
+        assertThatThrownBy(() -> elasticsearchService.searchAfter("post", Query.of(q -> q.matchAll(m -> m)), 10, Object.class, List.of(), cursor()))
+                .isInstanceOf(ValidateException.class)
+                .extracting("error").isEqualTo(ErrorCodes.SEARCH_CURSOR_INVALID);
+    }
+
+    @Test
+    void serverErrorIsNotBlamedOnTheCursor() throws Exception {
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(Object.class))).thenThrow(new ElasticsearchException("search",
+                ErrorResponse.of(e -> e.status(503).error(c -> c.type("unavailable_shards_exception").reason("primary shard is not active")))));
+
+        assertThatThrownBy(() -> elasticsearchService.searchAfter("post", Query.of(q -> q.matchAll(m -> m)), 10, Object.class, List.of(), cursor()))
+                .isInstanceOf(ElasticsearchException.class);
+    }
+
+    private String cursor() throws Exception {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(new SearchCursorDto("pit-1", List.of(1L, "p1"))));
+    }
+}
@@ -0,0 +1,96 @@
+package com.edu.webapp.service.impl;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonpUtils;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.edu.webapp.config.RankingConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Scores documents with the function_score the search sends, following Elasticsearch's weight and gauss formulas,
+ * for a browse without keyword where the wrapped bool query only has filters and every hit scores 0.
+ */
+class ElasticsearchServiceRankingTest {
+    private final ElasticsearchService<Object> elasticsearchService = new ElasticsearchService<>(null, null, null);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RankingConfig rankingConfig;
+
+    @BeforeEach
+    void setUp() {
+        rankingConfig = new RankingConfig();
+    }
+
+    @Test
+    void vipPostOutranksNewerNonVipPost() throws Exception {
+        JsonNode functionScore = render(filterOnly());
+
+        double oldVip = score(functionScore, 1, Duration.ofDays(10));
+        double freshNonVip = score(functionScore, 0, Duration.ZERO);
+
+        assertThat(oldVip).isGreaterThan(freshNonVip);
+    }
+
+    @Test
+    void newerPostOutranksOlderPostOfSameTier() throws Exception {
+        JsonNode functionScore = render(filterOnly());
+
+        assertThat(score(functionScore, 0, Duration.ofDays(2))).isGreaterThan(score(functionScore, 0, Duration.ofDays(9)));
+    }
+
+    @Test
+    void boostsAreAddedToQueryScore() throws Exception {
+        JsonNode functionScore = render(filterOnly());
+
+        assertThat(functionScore.path("boost_mode").asText()).isEqualTo("sum");
+        assertThat(functionScore.path("score_mode").asText()).isEqualTo("sum");
+    }
+
+    private BoolQuery filterOnly() {
+        return BoolQuery.of(b -> b.filter(f -> f.term(t -> t.field("province").value("Hà Nội"))));
+    }
+
+    private JsonNode render(BoolQuery boolQuery) throws Exception {
+        Query query = elasticsearchService.functionScore(boolQuery, rankingConfig);
+        return objectMapper.readTree(JsonpUtils.toJsonString(query, new JacksonJsonpMapper())).path("function_score");
+    }
+
+    // The bool query scores 0, so with boost_mode sum the final score is the sum of the functions
+    private double score(JsonNode functionScore, int vip, Duration age) {
+        double total = 0;
+        for (JsonNode function : functionScore.path("functions")) {
+            double weight = function.path("weight").asDouble(1);
+            if (function.has("filter")) {
+                JsonNode term = function.path("filter").path("term").path("vip");
+                int value = term.isObject() ? term.path("value").asInt() : term.asInt();
+                if (value == vip) total += weight;
+            } else if (function.has("gauss")) {
+                JsonNode placement = function.path("gauss").path("updatedAt");
+                double scale = toMillis(placement.path("scale").asText());
+                double offset = toMillis(placement.path("offset").asText());
+                double decay = placement.path("decay").asDouble();
+                double sigmaSquared = -scale * scale / (2 * Math.log(decay));
+                double distance = Math.max(0, age.toMillis() - offset);
+                total += weight * Math.exp(-distance * distance / (2 * sigmaSquared));
+            }
+        }
+        return total;
+    }
+
+    private double toMillis(String value) {
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 'd' -> Duration.ofDays(amount).toMillis();
+            case 'h' -> Duration.ofHours(amount).toMillis();
+            case 'm' -> Duration.ofMinutes(amount).toMillis();
+            default -> Duration.ofSeconds(amount).toMillis();
+        };
+    }
+}
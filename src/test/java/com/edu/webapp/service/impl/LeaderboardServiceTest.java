@@ -0,0 +1,114 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.model.dto.PostCommentDto;
+import com.edu.webapp.model.dto.PostLikeDto;
+import com.edu.webapp.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * The boards: events move the in-memory counts, publish ranks them through a bounded heap,
+ * and a post seen for the first time starts from the committed MySQL count.
+ */
+class LeaderboardServiceTest {
+    private PostRepository postRepository;
+    private LeaderboardService leaderboardService;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        leaderboardService = new LeaderboardService(postRepository);
+        ReflectionTestUtils.setField(leaderboardService, "candidates", 3);
+    }
+
+    @Test
+    void publishKeepsTheHighestCountsInOrder() {
+        when(postRepository.findTopLikeCount(any())).thenReturn(List.of(
+                new PostLikeDto("p1", 5L), new PostLikeDto("p2", 9L), new PostLikeDto("p3", 1L),
+                new PostLikeDto("p4", 7L), new PostLikeDto("p5", 0L)));
+        when(postRepository.findTopCommentCount(any())).thenReturn(List.of());
+
+        leaderboardService.resync();
+
+        assertThat(leaderboardService.topLiked()).extracting(LeaderboardService.Entry::getPostId).containsExactly("p2", "p4", "p1");
+        assertThat(leaderboardService.topLiked()).extracting(LeaderboardService.Entry::getCount).containsExactly(9L, 7L, 5L);
+    }
+
+    @Test
+    void firstSeenPostStartsFromTheStoredCount() {
+        // The stored count already includes the comment that triggered the event
+        when(postRepository.findCommentCountById("p1")).thenReturn(4L);
+
+        leaderboardService.commentAdded("p1");
+        leaderboardService.commentAdded("p1");
+        leaderboardService.publish();
+
+        assertThat(leaderboardService.topCommented()).extracting(LeaderboardService.Entry::getCount).containsExactly(5L);
+        verify(postRepository, times(1)).findCommentCountById("p1");
+    }
+
+    @Test
+    void unlikeDropsThePostOnceItReachesZero() {
+        when(postRepository.findLikeCountById("p1")).thenReturn(1L);
+
+        leaderboardService.likeChanged("p1", true);
+        leaderboardService.likeChanged("p1", false);
+        leaderboardService.publish();
+
+        assertThat(leaderboardService.topLiked()).isEmpty();
+    }
+
+    @Test
+    void publishEvictsPostsBeyondTheCandidates() {
+        when(postRepository.findTopLikeCount(any())).thenReturn(List.of(
+                new PostLikeDto("p1", 5L), new PostLikeDto("p2", 9L), new PostLikeDto("p3", 1L), new PostLikeDto("p4", 7L)));
+        when(postRepository.findTopCommentCount(any())).thenReturn(List.of());
+        leaderboardService.resync();
+
+        // p3 fell off the board, so its next like starts again from the stored count
+        when(postRepository.findLikeCountById("p3")).thenReturn(2L);
+        leaderboardService.likeChanged("p3", true);
+
+        verify(postRepository, times(1)).findLikeCountById("p3");
+    }
+
+    @Test
+    void concurrentFirstSeenLoadKeepsBothChanges() {
+        // While the first event loads p1, a second event loads and stores it first
+        when(postRepository.findLikeCountById("p1")).thenAnswer(invocation -> {
+            leaderboardService.likeChanged("p1", true);
+            return 1L;
+        }).thenReturn(2L);
+
+        leaderboardService.likeChanged("p1", true);
+        leaderboardService.publish();
+
+        assertThat(leaderboardService.topLiked()).extracting(LeaderboardService.Entry::getCount).containsExactly(3L);
+    }
+
+    @Test
+    void eventsInsideATransactionWaitForTheCommit() {
+        when(postRepository.findLikeCountById("p1")).thenReturn(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            leaderboardService.likeChanged("p1", true);
+            verify(postRepository, never()).findLikeCountById("p1");
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        leaderboardService.publish();
+
+        assertThat(leaderboardService.topLiked()).extracting(LeaderboardService.Entry::getCount).containsExactly(1L);
+    }
+}
@@ -0,0 +1,60 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.repository.LikePostRepository;
+import com.edu.webapp.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Liked state served from the sorted liked ids of a user: loaded once, patched on like changes,
+ * and left to per-request lookups for users with too many likes to keep.
+ */
+class LikedStateServiceTest {
+    private LikePostRepository likePostRepository;
+    private LikedStateService likedStateService;
+
+    @BeforeEach
+    void setUp() {
+        likePostRepository = mock(LikePostRepository.class);
+        likedStateService = new LikedStateService(likePostRepository, mock(UserRepository.class));
+    }
+
+    @Test
+    void likedIdsAreLoadedOnceAndPatchedOnChange() {
+        when(likePostRepository.findLikedPostIdsByUserId(eq("u1"), any(Pageable.class))).thenReturn(List.of("p3", "p1"));
+
+        assertThat(likedStateService.getLikedByUserId("u1", List.of("p1", "p2", "p3")))
+                .isEqualTo(Map.of("p1", true, "p2", false, "p3", true));
+
+        likedStateService.likeChanged("u1", "p2", true);
+        likedStateService.likeChanged("u1", "p1", false);
+
+        assertThat(likedStateService.getLikedByUserId("u1", List.of("p1", "p2", "p3")))
+                .isEqualTo(Map.of("p1", false, "p2", true, "p3", true));
+        verify(likePostRepository, times(1)).findLikedPostIdsByUserId(eq("u1"), any(Pageable.class));
+        verify(likePostRepository, never()).findLikedPostIds(any(), anyCollection());
+    }
+
+    @Test
+    void userWithTooManyLikesIsLookedUpPerRequest() {
+        List<String> many = IntStream.rangeClosed(0, 5000).mapToObj(i -> "p" + i).toList();
+        when(likePostRepository.findLikedPostIdsByUserId(eq("u1"), any(Pageable.class))).thenReturn(many);
+        when(likePostRepository.findLikedPostIds(eq("u1"), anyCollection())).thenReturn(List.of("p7"));
+
+        assertThat(likedStateService.getLikedByUserId("u1", List.of("p7", "x")))
+                .isEqualTo(Map.of("p7", true, "x", false));
+        likedStateService.getLikedByUserId("u1", List.of("p7"));
+
+        verify(likePostRepository, times(1)).findLikedPostIdsByUserId(eq("u1"), any(Pageable.class));
+        verify(likePostRepository, times(2)).findLikedPostIds(eq("u1"), anyCollection());
+    }
+}
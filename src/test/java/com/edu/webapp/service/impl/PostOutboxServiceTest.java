@@ -0,0 +1,171 @@
+package com.edu.webapp.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+import co.elastic.clients.util.ObjectBuilder;
+import com.edu.webapp.entity.post.Post;
+import com.edu.webapp.entity.post.PostEls;
+import com.edu.webapp.entity.post.PostOutbox;
+import com.edu.webapp.model.enums.ActiveStatus;
+import com.edu.webapp.repository.PostOutboxRepository;
+import com.edu.webapp.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * One relay run: rows of the same post collapse into one index request, rows whose push failed stay in the outbox,
+ * and posts that are no longer active are deleted from the index.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PostOutboxServiceTest {
+    @Mock
+    private PostOutboxRepository postOutboxRepository;
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private PostIndexService postIndexService;
+    @Mock
+    private SearchCacheService searchCacheService;
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+    @Mock
+    private ElasticsearchClient elasticsearchClient;
+    @Mock
+    private ReindexService reindexService;
+    @InjectMocks
+    private PostOutboxService postOutboxService;
+    @Captor
+    private ArgumentCaptor<List<IndexQuery>> queries;
+
+    private final List<Long> deletedRows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(postOutboxService, "batchSize", 500);
+        ReflectionTestUtils.setField(postOutboxService, "maxAttempts", 3);
+        doAnswer(invocation -> deletedRows.addAll(invocation.<Collection<Long>>getArgument(0)))
+                .when(postOutboxRepository).deleteByIdIn(anyCollection());
+        when(postIndexService.buildDocuments(anyList())).thenAnswer(invocation -> invocation.<List<Post>>getArgument(0).stream()
+                .map(post -> {
+                    PostEls postEls = new PostEls();
+                    postEls.setId(post.getId());
+                    return postEls;
+                }).toList());
+        when(elasticsearchClient.bulk(ArgumentMatchers.<Function<BulkRequest.Builder, ObjectBuilder<BulkRequest>>>any())).thenReturn(BulkResponse.of(b -> b.errors(false).took(1).items(List.of())));
+    }
+
+    @Test
+    void rowsOfTheSamePostArePushedOnce() {
+        pending(row(1L, "p1"), row(2L, "p1"), row(3L, "p1"));
+        when(postRepository.findWithImagesByIdIn(anyCollection())).thenReturn(List.of(post("p1", ActiveStatus.ACTIVE)));
+
+        postOutboxService.relay();
+
+        verify(elasticsearchOperations).bulkIndex(queries.capture(), eq(PostEls.class));
+        assertThat(queries.getValue()).extracting(IndexQuery::getId).containsExactly("p1");
+        assertThat(deletedRows).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void rejectedDocumentsKeepTheirRows() {
+        pending(row(1L, "p1"), row(2L, "p2"), row(3L, "p2"));
+        when(postRepository.findWithImagesByIdIn(anyCollection()))
+                .thenReturn(List.of(post("p1", ActiveStatus.ACTIVE), post("p2", ActiveStatus.ACTIVE)));
+        when(elasticsearchOperations.bulkIndex(anyList(), eq(PostEls.class)))
+                .thenThrow(new BulkFailureException("rejected", Map.of("p2", new BulkFailureException.FailureDetails(429, "rejected"))));
+
+        postOutboxService.relay();
+
+        assertThat(deletedRows).containsExactly(1L);
+        verify(postOutboxRepository, times(1)).findPending(anyInt(), any());
+        verify(postOutboxRepository).increaseAttempts(List.of(2L, 3L));
+    }
+
+    @Test
+    void inactiveAndMissingPostsAreDeletedFromTheIndex() throws Exception {
+        pending(row(1L, "p1"), row(2L, "p2"));
+        when(postRepository.findWithImagesByIdIn(anyCollection())).thenReturn(List.of(post("p1", ActiveStatus.INACTIVE)));
+
+        postOutboxService.relay();
+
+        verify(elasticsearchOperations, never()).bulkIndex(anyList(), eq(PostEls.class));
+        verify(elasticsearchClient).bulk(ArgumentMatchers.<Function<BulkRequest.Builder, ObjectBuilder<BulkRequest>>>any());
+        assertThat(deletedRows).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void rejectedDeletesKeepTheirRows() throws Exception {
+        pending(row(1L, "p1"), row(2L, "p2"));
+        when(postRepository.findWithImagesByIdIn(anyCollection())).thenReturn(List.of());
+        when(elasticsearchClient.bulk(ArgumentMatchers.<Function<BulkRequest.Builder, ObjectBuilder<BulkRequest>>>any())).thenReturn(BulkResponse.of(b -> b.errors(true).took(1).items(
+                BulkResponseItem.of(i -> i.operationType(OperationType.Delete).index("post").id("p1").status(404)),
+                BulkResponseItem.of(i -> i.operationType(OperationType.Delete).index("post").id("p2").status(503)
+                        .error(e -> e.type("unavailable_shards_exception").reason("primary shard is not active"))))));
+
+        postOutboxService.relay();
+
+        assertThat(deletedRows).containsExactly(1L);
+    }
+
+    @Test
+    void movedPostEvictsItsOldLocation() {
+        PostOutbox moved = row(1L, "p1");
+        moved.setOldProvince("Ha Noi");
+        moved.setOldDistrict("Cau Giay");
+        pending(moved);
+        Post post = post("p1", ActiveStatus.ACTIVE);
+        post.setProvince("Da Nang");
+        post.setDistrict("Hai Chau");
+        when(postRepository.findWithImagesByIdIn(anyCollection())).thenReturn(List.of(post));
+
+        postOutboxService.relay();
+
+        verify(searchCacheService).evict("Da Nang", "Hai Chau");
+        verify(searchCacheService).evict("Ha Noi", "Cau Giay");
+    }
+
+    private void pending(PostOutbox... rows) {
+        when(postOutboxRepository.findPending(anyInt(), any())).thenReturn(List.of(rows)).thenReturn(List.of());
+    }
+
+    private PostOutbox row(Long id, String postId) {
+        PostOutbox row = new PostOutbox();
+        row.setId(id);
+        row.setPostId(postId);
+        return row;
+    }
+
+    private Post post(String id, ActiveStatus active) {
+        Post post = new Post();
+        post.setId(id);
+        post.setActive(active);
+        return post;
+    }
+}
@@ -0,0 +1,49 @@
+package com.edu.webapp.service.impl;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import com.edu.webapp.error.ValidateException;
+import com.edu.webapp.model.request.FilterGeoReq;
+import com.edu.webapp.model.request.FilterPostReq;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The radius filter: the distance reaches ES in plain notation, and a radius outside what ES can use is rejected up front.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PostsServiceImplGeoTest {
+    @InjectMocks
+    private PostsServiceImpl postsService;
+
+    @Test
+    void distanceIsSentInPlainNotation() {
+        BoolQuery boolQuery = postsService.buildBoolQuery(geo(21.0, 105.8, 0.0005));
+
+        assertThat(boolQuery.filter().get(0).geoDistance().distance()).isEqualTo("0.0005km");
+    }
+
+    @Test
+    void outOfRangeDistanceOrCenterIsRejected() {
+        assertInvalid(geo(21.0, 105.8, 1.0E7));
+        assertInvalid(geo(21.0, 105.8, 0.0));
+        assertInvalid(geo(21.0, 105.8, Double.NaN));
+        assertInvalid(geo(91.0, 105.8, 5.0));
+        assertInvalid(geo(21.0, -181.0, 5.0));
+    }
+
+    private void assertInvalid(FilterPostReq filterPostReq) {
+        assertThatThrownBy(() -> postsService.buildBoolQuery(filterPostReq)).isInstanceOf(ValidateException.class);
+    }
+
+    private FilterPostReq geo(double lat, double lon, double distance) {
+        return FilterPostReq.builder().geo(FilterGeoReq.builder().lat(lat).lon(lon).distance(distance).build()).build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.error.ValidateException;
+import com.edu.webapp.repository.LikePostRepository;
+import com.edu.webapp.repository.PostRepository;
+import com.edu.webapp.security.JwtCommon;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * The like toggle: one DELETE decides the direction, LIKE_COUNT moves by exactly one per real change,
+ * and the caches are only touched once the transaction went through.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PostsServiceImplLikeTest {
+    private static final String POST_ID = "post-1";
+    private static final String USER_ID = "user-1";
+    private static final String EMAIL = "user@gmail.com";
+
+    @Mock
+    private JwtCommon jwtCommon;
+    @Mock
+    private LikedStateService likedStateService;
+    @Mock
+    private LikePostRepository likePostRepository;
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private PostOutboxService postOutboxService;
+    @Mock
+    private PostDetailCacheService postDetailCacheService;
+    @Mock
+    private LeaderboardService leaderboardService;
+    @Mock
+    private MonthlyEngagementService monthlyEngagementService;
+    @Mock
+    private RecommendService recommendService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @InjectMocks
+    private PostsServiceImpl postsService;
+
+    @BeforeEach
+    void setUp() {
+        when(jwtCommon.extractUsername()).thenReturn(EMAIL);
+        when(likedStateService.resolveUserId(EMAIL)).thenReturn(USER_ID);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(postRepository.addLikeCount(eq(POST_ID), anyLong())).thenReturn(1);
+    }
+
+    @Test
+    void firstTapLikesAndIncrementsCount() {
+        when(likePostRepository.deleteLike(POST_ID, USER_ID)).thenReturn(0);
+        when(likePostRepository.insertLike(anyString(), eq(POST_ID), eq(USER_ID))).thenReturn(1);
+
+        postsService.likePost(POST_ID);
+
+        verify(postRepository).addLikeCount(POST_ID, 1L);
+        verify(postOutboxService).enqueue(POST_ID);
+        verify(monthlyEngagementService).likeAdded();
+        verify(postDetailCacheService).invalidate(POST_ID);
+        verify(likedStateService).likeChanged(USER_ID, POST_ID, true);
+        verify(leaderboardService).likeChanged(POST_ID, true);
+    }
+
+    @Test
+    void secondTapUnlikesAndDecrementsCount() {
+        when(likePostRepository.deleteLike(POST_ID, USER_ID)).thenReturn(1);
+
+        postsService.likePost(POST_ID);
+
+        verify(likePostRepository, never()).insertLike(anyString(), anyString(), anyString());
+        verify(postRepository).addLikeCount(POST_ID, -1L);
+        verify(monthlyEngagementService).likeRemoved();
+        verify(likedStateService).likeChanged(USER_ID, POST_ID, false);
+        verify(leaderboardService).likeChanged(POST_ID, false);
+    }
+
+    @Test
+    void concurrentDuplicateLikeLeavesCountAlone() {
+        when(likePostRepository.deleteLike(POST_ID, USER_ID)).thenReturn(0);
+        when(likePostRepository.insertLike(anyString(), eq(POST_ID), eq(USER_ID))).thenReturn(0);
+
+        postsService.likePost(POST_ID);
+
+        verify(postRepository, never()).addLikeCount(anyString(), anyLong());
+        verify(postOutboxService, never()).enqueue(anyString());
+        verify(likedStateService, never()).likeChanged(anyString(), anyString(), anyBoolean());
+    }
+
+    @Test
+    void lostLockIsRetried() {
+        when(likePostRepository.deleteLike(POST_ID, USER_ID)).thenReturn(0);
+        when(likePostRepository.insertLike(anyString(), eq(POST_ID), eq(USER_ID))).thenReturn(1);
+        doThrow(new CannotAcquireLockException("Deadlock found when trying to get lock"))
+                .doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+
+        postsService.likePost(POST_ID);
+
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(postRepository).addLikeCount(POST_ID, 1L);
+    }
+
+    @Test
+    void missingPostFailsWithoutTouchingCaches() {
+        when(likePostRepository.deleteLike(POST_ID, USER_ID)).thenReturn(0);
+        when(likePostRepository.insertLike(anyString(), eq(POST_ID), eq(USER_ID))).thenReturn(1);
+        when(postRepository.addLikeCount(POST_ID, 1L)).thenReturn(0);
+
+        assertThatThrownBy(() -> postsService.likePost(POST_ID)).isInstanceOf(ValidateException.class);
+
+        verify(postDetailCacheService, never()).invalidate(anyString());
+        verify(likedStateService, never()).likeChanged(anyString(), anyString(), anyBoolean());
+    }
+}
@@ -0,0 +1,63 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.config.RankingConfig;
+import com.edu.webapp.error.ValidateException;
+import com.edu.webapp.model.request.RankingReq;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runtime ranking changes: a request is applied only when every value is one ES accepts.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PostsServiceImplRankingTest {
+    @Spy
+    private RankingConfig rankingConfig = new RankingConfig();
+    @Mock
+    private SearchCacheService searchCacheService;
+    @InjectMocks
+    private PostsServiceImpl postsService;
+
+    @Test
+    void validRequestIsAppliedAndEvictsCachedSearches() {
+        RankingReq rankingReq = RankingReq.builder().vipWeight(3.0).freshnessScale("12h").freshnessOffset("0d").freshnessDecay(0.3).build();
+
+        postsService.updateRanking(rankingReq);
+
+        assertThat(rankingConfig.getVipWeight()).isEqualTo(3.0);
+        assertThat(rankingConfig.getFreshnessScale()).isEqualTo("12h");
+        assertThat(rankingConfig.getFreshnessOffset()).isEqualTo("0d");
+        assertThat(rankingConfig.getFreshnessDecay()).isEqualTo(0.3);
+        verify(searchCacheService).evictAll();
+    }
+
+    @Test
+    void invalidValueRejectsTheWholeRequest() {
+        assertInvalid(RankingReq.builder().vipWeight(5.0).freshnessDecay(1.0).build());
+        assertInvalid(RankingReq.builder().freshnessDecay(0.0).build());
+        assertInvalid(RankingReq.builder().freshnessWeight(-1.0).build());
+        assertInvalid(RankingReq.builder().vipWeight(Double.NaN).build());
+        assertInvalid(RankingReq.builder().freshnessScale("0d").build());
+        assertInvalid(RankingReq.builder().freshnessScale("a week").build());
+        assertInvalid(RankingReq.builder().freshnessOffset("1y").build());
+
+        assertThat(rankingConfig.getVipWeight()).isEqualTo(2.0);
+        verify(searchCacheService, never()).evictAll();
+    }
+
+    private void assertInvalid(RankingReq rankingReq) {
+        assertThatThrownBy(() -> postsService.updateRanking(rankingReq)).isInstanceOf(ValidateException.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.edu.webapp.service.impl;
+
+import com.edu.webapp.entity.post.LogSearch;
+import com.edu.webapp.repository.LogSearchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * The buffered flush: a transient failure keeps the batch for the next run, a row rejected for its data
+ * is dropped on its own without holding back its batch-mates.
+ */
+class SearchHistoryServiceTest {
+    private LogSearchRepository logSearchRepository;
+    private SearchHistoryService searchHistoryService;
+    private final List<String> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        logSearchRepository = mock(LogSearchRepository.class);
+        searchHistoryService = new SearchHistoryService(logSearchRepository);
+        ReflectionTestUtils.setField(searchHistoryService, "batchSize", 500);
+        when(logSearchRepository.findByUserId(any())).thenReturn(List.of());
+        when(logSearchRepository.save(any())).thenAnswer(invocation -> {
+            LogSearch logSearch = invocation.getArgument(0);
+            if (logSearch.getKeySearch().equals("bad")) throw new DataIntegrityViolationException("bad row");
+            saved.add(logSearch.getKeySearch());
+            return logSearch;
+        });
+    }
+
+    @Test
+    void badRowIsDroppedAndItsBatchMatesAreWritten() {
+        when(logSearchRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("bad row"));
+        searchHistoryService.record("user@gmail.com", "ha noi");
+        searchHistoryService.record("user@gmail.com", "bad");
+        searchHistoryService.record("user@gmail.com", "da nang");
+
+        searchHistoryService.flush();
+        searchHistoryService.flush();
+
+        assertThat(saved).containsExactly("ha noi", "da nang");
+        verify(logSearchRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void transientFailureKeepsTheBatchForTheNextRun() {
+        when(logSearchRepository.saveAll(anyList())).thenThrow(new QueryTimeoutException("timeout")).thenReturn(List.of());
+        searchHistoryService.record("user@gmail.com", "ha noi");
+
+        searchHistoryService.flush();
+        searchHistoryService.flush();
+
+        verify(logSearchRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void longKeyIsCutToTheColumnLength() {
+        searchHistoryService.record("user@gmail.com", "x".repeat(300));
+
+        assertThat(searchHistoryService.recent("user@gmail.com").get(0)).hasSize(255);
+    }
+}
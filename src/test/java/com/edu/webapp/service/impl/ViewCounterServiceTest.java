@@ -0,0 +1,86 @@
+package com.edu.webapp.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Write-behind views: the flush turns the counted views into one relative UPDATE per post,
+ * puts them back when the write fails, and drops the cached details of the flushed posts.
+ */
+class ViewCounterServiceTest {
+    private JdbcTemplate jdbcTemplate;
+    private PostDetailCacheService postDetailCacheService;
+    private ViewCounterService viewCounterService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        postDetailCacheService = mock(PostDetailCacheService.class);
+        viewCounterService = new ViewCounterService(jdbcTemplate, mock(ElasticsearchClient.class), postDetailCacheService);
+        ReflectionTestUtils.setField(viewCounterService, "batchSize", 500);
+        ReflectionTestUtils.setField(viewCounterService, "mirrorEs", false);
+    }
+
+    @Test
+    void flushWritesTheCountedViewsOnce() {
+        viewCounterService.increment("p1");
+        viewCounterService.increment("p1");
+        viewCounterService.increment("p2");
+
+        viewCounterService.flush();
+
+        assertThat(flushed()).containsOnly(Map.entry("p1", 2L), Map.entry("p2", 1L));
+        assertThat(viewCounterService.pending("p1")).isZero();
+        verify(postDetailCacheService).invalidate("p1");
+        verify(postDetailCacheService).invalidate("p2");
+
+        viewCounterService.flush();
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), ArgumentMatchers.<Collection<Map.Entry<String, Long>>>any(), anyInt(), ArgumentMatchers.<ParameterizedPreparedStatementSetter<Map.Entry<String, Long>>>any());
+    }
+
+    @Test
+    void failedFlushKeepsTheViewsForTheNextRun() {
+        when(jdbcTemplate.batchUpdate(anyString(), ArgumentMatchers.<Collection<Map.Entry<String, Long>>>any(), anyInt(), ArgumentMatchers.<ParameterizedPreparedStatementSetter<Map.Entry<String, Long>>>any()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        viewCounterService.increment("p1");
+        viewCounterService.increment("p1");
+
+        viewCounterService.flush();
+        viewCounterService.increment("p1");
+
+        assertThat(viewCounterService.pending("p1")).isEqualTo(3);
+        verify(postDetailCacheService, never()).invalidate(anyString());
+    }
+
+    @Test
+    void viewsCountedAfterAFlushAreNotLost() {
+        viewCounterService.increment("p1");
+        viewCounterService.flush();
+        viewCounterService.flush();
+        viewCounterService.increment("p1");
+
+        assertThat(viewCounterService.pending("p1")).isEqualTo(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> flushed() {
+        ArgumentCaptor<Collection<Map.Entry<String, Long>>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE post SET `view` = `view` + ? WHERE id = ?"), batch.capture(), anyInt(), ArgumentMatchers.<ParameterizedPreparedStatementSetter<Map.Entry<String, Long>>>any());
+        return batch.getValue().stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+}